@@ -10,6 +10,8 @@ import java.util.Queue;
 import java.util.Scanner;
 import java.util.function.Function;
 
+import diceTools.Convolution;
+import diceTools.DenseRollMap;
 import diceTools.DiceRollIterable;
 import diceTools.DiceNumber;
 import diceTools.DiceNumber.DiceInteger;
@@ -36,6 +38,7 @@ public class Main
 //		diceRollIterTest();
 //		immListEqualsTest();
 //		averageTest();
+//		convolutionBenchmark();
 	}
 
 	public static void testDRMrolls()
@@ -239,6 +242,40 @@ public class Main
 		System.out.printf("\t%15s: %.3f\n", "mean", ProbMap.getMean(drm));
 	}
 	
+	public static void convolutionBenchmark()
+	{
+		System.out.println("##### Benchmarking Convolution crossover #####");
+		
+		for (int sides : new int[] {2, 6, 20, 100})
+		{
+			for (int length = 256; length <= 8192; length *= 2)
+			{
+				final int numDice = Math.max(1, (length - 1) / (sides - 1));
+				final double[] a = DenseRollMap.diceRoll(numDice, sides).toArray();
+				final int repeats = Math.max(1, 20000000 / (a.length * a.length));
+				
+				long directTime = Long.MAX_VALUE;
+				long fftTime = Long.MAX_VALUE;
+				
+				for (int warm = 0; warm < 5; warm++)
+				{
+					long start = System.nanoTime();
+					for (int r = 0; r < repeats; r++)
+						Convolution.convolveDirect(a, a);
+					directTime = Math.min(directTime, System.nanoTime() - start);
+					
+					start = System.nanoTime();
+					for (int r = 0; r < repeats; r++)
+						Convolution.convolveFFT(a, a);
+					fftTime = Math.min(fftTime, System.nanoTime() - start);
+				}
+				
+				System.out.printf("%4dd%-3d (length %5d): direct %10.1f us, FFT %10.1f us\n", numDice, sides, a.length,
+						directTime / (1000.0 * repeats), fftTime / (1000.0 * repeats));
+			}
+		}
+	}
+	
 	public static void iterSortTest()
 	{
 		System.out.println("##### Testing DiceFileTools.iterableToSortedList #####");
@@ -0,0 +1,613 @@
+package diceTools;
+
+import java.util.Arrays;
+
+/**
+ * Provides methods to convolve arrays of probabilities,
+ * as required when summing independent integer-valued rolls.
+ * <p>Short arrays are convolved directly. Once both arrays are at least
+ * {@link #FFT_CROSSOVER} long, a fast Fourier transform is used instead,
+ * reducing the cost from O(n&middot;m) to O((n+m)&middot;log(n+m)).
+ * The transform introduces rounding errors of the order of
+ * <code>1e-16</code> times the largest probability, which swamp the
+ * far tails of the result. Every result smaller than <code>n&middot;&epsilon;</code>
+ * times the product of the Euclidean norms of the arrays, which is no smaller than the
+ * largest result, is therefore recalculated, where <code>n</code> is the length of the transform. The tails are recalculated with further transforms of
+ * exponentially scaled arrays, each of which brings another stretch of the tail up
+ * to the scale of its largest result, so the far tails keep a relative precision
+ * close to that of the largest result. Results which must be zero are exactly zero.
+ * Arrays holding negative values are always convolved directly, since
+ * cancellation would make the rounding error of the transform unbounded.
+ *
+ * @author kieran
+ */
+public final class Convolution
+{
+	/**
+	 * Minimum length of both arrays for which the fast Fourier transform is used.
+	 * Determined with <code>Main.convolutionBenchmark()</code>, which convolves sums of
+	 * dice with themselves: below this length the direct loop is faster, and above twice
+	 * this length the transform is faster for every number of sides tried.
+	 */
+	public static final int FFT_CROSSOVER = 2048;
+	
+	/**
+	 * Private constructor prevents instantiation
+	 */
+	private Convolution() {}
+	
+	/**
+	 * Convolve two arrays, choosing the fastest method for their lengths
+	 * @param a		first array
+	 * @param b		second array
+	 * @return		array of length <code>a.length + b.length - 1</code> where element
+	 * 				<code>k</code> is the sum of <code>a[i] * b[j]</code> over all
+	 * 				<code>i + j == k</code>, or an empty array if either input is empty
+	 */
+	public static double[] convolve(double[] a, double[] b)
+	{
+		if (Math.min(a.length, b.length) >= FFT_CROSSOVER)
+			return convolveFFT(a, b);
+		else
+			return convolveDirect(a, b);
+	}
+	
+	/**
+	 * Convolve two arrays with a direct double loop
+	 * @param a		first array
+	 * @param b		second array
+	 * @return		convolution of <code>a</code> and <code>b</code>
+	 * @see #convolve(double[], double[])
+	 */
+	public static double[] convolveDirect(double[] a, double[] b)
+	{
+		if (a.length == 0 || b.length == 0)
+			return new double[0];
+		
+		final double[] out = new double[a.length + b.length - 1];
+		
+		for (int i = 0; i < a.length; i++)
+		{
+			final double pA = a[i];
+			
+			if (pA == 0.0)
+				continue;
+			
+			for (int j = 0; j < b.length; j++)
+				out[i + j] += pA * b[j];
+		}
+		
+		return out;
+	}
+	
+	/**
+	 * Convolve two arrays using a fast Fourier transform.
+	 * Results smaller than {@link #tolerance(double[], double[], int)} are recalculated.
+	 * Those which must be zero are set to exactly zero, and those forming a tail at either
+	 * end are recalculated with further, scaled transforms by
+	 * {@link #refineHead(double[], double[], double[], boolean[], int, double, double[], double[])}.
+	 * Any others are recalculated directly.
+	 * If either array holds a negative value, it is convolved directly instead.
+	 * @param a		first array
+	 * @param b		second array
+	 * @return		convolution of <code>a</code> and <code>b</code>
+	 * @see #convolve(double[], double[])
+	 */
+	public static double[] convolveFFT(double[] a, double[] b)
+	{
+		if (a.length == 0 || b.length == 0)
+			return new double[0];
+		
+		if (hasNegative(a) || hasNegative(b))
+			return convolveDirect(a, b);
+		
+		final int outLength = a.length + b.length - 1;
+		
+		int n = 1;
+		while (n < outLength)
+			n <<= 1;
+		
+		final double[] cos = new double[n / 2];
+		final double[] sin = new double[n / 2];
+		
+		for (int i = 0; i < n / 2; i++)
+		{
+			final double angle = 2 * Math.PI * i / n;
+			cos[i] = Math.cos(angle);
+			sin[i] = Math.sin(angle);
+		}
+		
+		final double[] out = transformConvolve(a, b, outLength, cos, sin);
+		final double tolerance = tolerance(a, b, n);
+		final boolean[] nonzero = support(a, b, outLength, cos, sin);
+		
+		int lo = 0;
+		while (lo < outLength && (out[lo] < tolerance || !nonzero[lo]))
+			lo++;
+		
+		if (lo == outLength)
+			return convolveDirect(a, b);
+		
+		int hi = outLength;
+		while (out[hi - 1] < tolerance || !nonzero[hi - 1])
+			hi--;
+		
+		for (int k = lo; k < hi; k++)
+		{
+			if (!nonzero[k])
+				out[k] = 0.0;
+			else if (out[k] < tolerance)
+				out[k] = convolveAt(a, b, k);
+		}
+		
+		final double[] outRev = reverse(out);
+		final boolean[] nonzeroRev = new boolean[outLength];
+		
+		for (int k = 0; k < outLength; k++)
+			nonzeroRev[k] = nonzero[outLength - 1 - k];
+		
+		refineHead(a, b, out, nonzero, lo, tolerance, cos, sin);
+		refineHead(reverse(a), reverse(b), outRev, nonzeroRev, outLength - hi, tolerance, cos, sin);
+		
+		for (int k = hi; k < outLength; k++)
+			out[k] = outRev[outLength - 1 - k];
+		
+		return out;
+	}
+	
+	/**
+	 * Recalculate the first elements of a convolution, which were too small for the
+	 * transform to calculate accurately.
+	 * <p>Multiplying <code>a[i]</code> by <code>t<sup>i</sup></code> and <code>b[j]</code>
+	 * by <code>t<sup>j</sup></code> multiplies element <code>k</code> of their convolution
+	 * by <code>t<sup>k</sup></code>. Choosing <code>t</code> to cancel the slope of the
+	 * logarithm of the convolution at some element makes the scaled elements near it
+	 * as large as any, so that another transform calculates them accurately.
+	 * The slope is taken a little below the first accurate element, extrapolating from
+	 * the slopes at the last two such elements, or at that element if this fails.
+	 * This is repeated until every element has been calculated, or the sum of the scaled
+	 * arrays bounds the remaining elements below the smallest positive <code>double</code>.
+	 * <p>If a transform calculates none of the remaining elements accurately,
+	 * as may happen when the convolution has several peaks,
+	 * the remaining elements are calculated directly.
+	 * @param a			first array
+	 * @param b			second array
+	 * @param out		convolution of <code>a</code> and <code>b</code>, where elements
+	 * 					no smaller than <code>tolerance</code> from index <code>end</code> are accurate
+	 * @param nonzero	which elements of the convolution are not necessarily zero
+	 * @param end		number of elements to recalculate
+	 * @param tolerance	smallest accurate element of <code>out</code>
+	 * @param cos		cosines for the transform
+	 * @param sin		sines for the transform
+	 */
+	private static void refineHead(double[] a, double[] b, double[] out, boolean[] nonzero, int end,
+			double tolerance, double[] cos, double[] sin)
+	{
+		final double logMin = Math.log(Double.MIN_VALUE);
+		final double logRange = -Math.log(2 * cos.length * Math.ulp(1.0));
+		final double[] aScaled = new double[a.length];
+		final double[] bScaled = new double[b.length];
+		
+		double[] scaled = out;
+		double logT = 0.0;
+		double lastSlope = Double.NaN;
+		int lastBase = 0;
+		boolean cautious = false;
+		
+		while (end > 0)
+		{
+			int base = end;
+			while (base < out.length && !nonzero[base])
+				base++;
+			
+			int next = base + 1;
+			while (next < out.length && !nonzero[next])
+				next++;
+			
+			if (next >= out.length || scaled[base] < tolerance || scaled[next] < tolerance)
+				break;
+			
+			final double slope = (Math.log(scaled[next]) - Math.log(scaled[base])) / (next - base) - logT;
+			double aim = slope;
+			
+			if (!cautious && slope > lastSlope)
+				aim += 0.8 * Math.sqrt(2 * logRange * (slope - lastSlope) / (lastBase - base));
+			
+			if (!(aim > 0.0))
+				break;
+			
+			final double shift = scale(a, -aim, aScaled) + scale(b, -aim, bScaled);
+			final double logSum = Math.log(sum(aScaled) * sum(bScaled)) + shift;
+			final double[] trial = transformConvolve(aScaled, bScaled, out.length, cos, sin);
+			final double trialTolerance = tolerance(aScaled, bScaled, 2 * cos.length);
+			
+			int k = end;
+			
+			for (; k > 0; k--)
+			{
+				if (logSum + (k - 1) * aim < logMin)
+				{
+					Arrays.fill(out, 0, k, 0.0);
+					return;
+				}
+				
+				if (!nonzero[k - 1])
+					out[k - 1] = 0.0;
+				else if (trial[k - 1] >= trialTolerance)
+					out[k - 1] = Math.exp(Math.log(trial[k - 1]) + shift + (k - 1) * aim);
+				else
+					break;
+			}
+			
+			if (k == end)
+			{
+				if (aim == slope)
+					break;
+				
+				cautious = true;
+				continue;
+			}
+			
+			scaled = trial;
+			tolerance = trialTolerance;
+			logT = -aim;
+			lastSlope = slope;
+			lastBase = base;
+			cautious = false;
+			end = k;
+		}
+		
+		for (int k = 0; k < end; k++)
+			out[k] = nonzero[k] ? convolveAt(a, b, k) : 0.0;
+	}
+	
+	/**
+	 * Multiply each element of an array by <code>t<sup>i</sup></code>, where <code>i</code>
+	 * is its index, then divide them all by the same factor so that the largest is 1
+	 * @param arr		non-negative array to scale, with at least one nonzero element
+	 * @param logT		natural logarithm of <code>t</code>
+	 * @param scaled	array of the same length in which to store the result
+	 * @return			natural logarithm of the factor the scaled elements were divided by
+	 */
+	private static double scale(double[] arr, double logT, double[] scaled)
+	{
+		double shift = Double.NEGATIVE_INFINITY;
+		
+		for (int i = 0; i < arr.length; i++)
+		{
+			scaled[i] = Math.log(arr[i]) + i * logT;
+			shift = Math.max(shift, scaled[i]);
+		}
+		
+		for (int i = 0; i < arr.length; i++)
+			scaled[i] = Math.exp(scaled[i] - shift);
+		
+		return shift;
+	}
+	
+	/**
+	 * Find which elements of the convolution of two non-negative arrays are not necessarily zero.
+	 * If each array is nonzero throughout a single range, these form the sum of those ranges.
+	 * Otherwise, arrays marking the nonzero elements are convolved with a transform,
+	 * whose integer results are far larger than its rounding errors.
+	 * @param a			first array
+	 * @param b			second array
+	 * @param outLength	length of the convolution
+	 * @param cos		cosines for the transform
+	 * @param sin		sines for the transform
+	 * @return			array which is true at each index <code>k</code> where some
+	 * 					<code>a[i] * b[j]</code> with <code>i + j == k</code> is nonzero
+	 */
+	private static boolean[] support(double[] a, double[] b, int outLength, double[] cos, double[] sin)
+	{
+		final boolean[] nonzero = new boolean[outLength];
+		
+		if (isContiguous(a) && isContiguous(b))
+		{
+			final int last = lastNonzero(a) + lastNonzero(b);
+			
+			for (int k = firstNonzero(a) + firstNonzero(b); k <= last; k++)
+				nonzero[k] = true;
+		}
+		else
+		{
+			final double[] counts = transformConvolve(indicator(a), indicator(b), outLength, cos, sin);
+			
+			for (int k = 0; k < outLength; k++)
+				nonzero[k] = counts[k] > 0.5;
+		}
+		
+		return nonzero;
+	}
+	
+	/**
+	 * Convolve two arrays with a fast Fourier transform, without correcting rounding errors.
+	 * Both arrays are scaled so that their largest elements are 1, then transformed together
+	 * as the real and imaginary parts of one complex array, and separated afterwards
+	 * using the symmetry of the transforms of real arrays.
+	 * @param a			first array
+	 * @param b			second array
+	 * @param outLength	<code>a.length + b.length - 1</code>
+	 * @param cos		cosines of <code>2&pi;i/n</code> for <code>i &lt; n/2</code>, where
+	 * 					<code>n</code> is a power of two no less than <code>outLength</code>
+	 * @param sin		sines of <code>2&pi;i/n</code> for <code>i &lt; n/2</code>
+	 * @return			convolution of <code>a</code> and <code>b</code>, with absolute errors of the order of
+	 * 					<code>n&middot;&epsilon;</code> times the largest element
+	 */
+	private static double[] transformConvolve(double[] a, double[] b, int outLength, double[] cos, double[] sin)
+	{
+		final int n = 2 * cos.length;
+		final double aMax = max(a);
+		final double bMax = max(b);
+		
+		if (aMax == 0.0 || bMax == 0.0)
+			return new double[outLength];
+		
+		final double[] re = new double[n];
+		final double[] im = new double[n];
+		
+		for (int i = 0; i < a.length; i++)
+			re[i] = a[i] / aMax;
+		
+		for (int i = 0; i < b.length; i++)
+			im[i] = b[i] / bMax;
+		
+		transform(re, im, cos, sin, false);
+		
+		final double[] prodRe = new double[n];
+		final double[] prodIm = new double[n];
+		
+		for (int k = 0; k < n; k++)
+		{
+			final int m = (n - k) & (n - 1);
+			
+			final double aRe = (re[k] + re[m]) / 2;
+			final double aIm = (im[k] - im[m]) / 2;
+			final double bRe = (im[k] + im[m]) / 2;
+			final double bIm = (re[m] - re[k]) / 2;
+			
+			prodRe[k] = aRe * bRe - aIm * bIm;
+			prodIm[k] = aRe * bIm + aIm * bRe;
+		}
+		
+		transform(prodRe, prodIm, cos, sin, true);
+		
+		final double[] out = new double[outLength];
+		final double factor = aMax * bMax / n;
+		
+		for (int i = 0; i < outLength; i++)
+			out[i] = prodRe[i] * factor;
+		
+		return out;
+	}
+	
+	/**
+	 * Calculate a single element of the convolution of two arrays directly
+	 * @param a		first array
+	 * @param b		second array
+	 * @param k		index of the element
+	 * @return		sum of <code>a[i] * b[j]</code> over all <code>i + j == k</code>
+	 */
+	private static double convolveAt(double[] a, double[] b, int k)
+	{
+		final int iMax = Math.min(k, a.length - 1);
+		double sum = 0.0;
+		
+		for (int i = Math.max(0, k - b.length + 1); i <= iMax; i++)
+			sum += a[i] * b[k - i];
+		
+		return sum;
+	}
+	
+	/**
+	 * Check whether an array holds a negative value
+	 * @param arr	array to check
+	 * @return		true if any element of <code>arr</code> is negative
+	 */
+	private static boolean hasNegative(double[] arr)
+	{
+		for (double p : arr)
+			if (p < 0.0)
+				return true;
+		
+		return false;
+	}
+	
+	/**
+	 * Find the size below which results of a transform may be swamped by its rounding errors.
+	 * These are bounded by a small multiple of <code>&epsilon;&middot;log(n)</code> times
+	 * the product of the Euclidean norms of the arrays, which is no smaller than
+	 * any result, so <code>n&middot;&epsilon;</code> times that product leaves a wide margin.
+	 * @param a		first array
+	 * @param b		second array
+	 * @param n		length of the transform
+	 * @return		smallest result considered accurate
+	 */
+	private static double tolerance(double[] a, double[] b, int n)
+	{
+		return norm(a) * norm(b) * n * Math.ulp(1.0);
+	}
+	
+	/**
+	 * Find the Euclidean norm of a non-negative array, without overflowing
+	 * @param arr	array to measure
+	 * @return		square root of the sum of the squares of the elements of <code>arr</code>
+	 */
+	private static double norm(double[] arr)
+	{
+		final double max = max(arr);
+		
+		if (max == 0.0)
+			return 0.0;
+		
+		double squares = 0.0;
+		
+		for (double p : arr)
+			squares += (p / max) * (p / max);
+		
+		return Math.sqrt(squares) * max;
+	}
+	
+	/**
+	 * Find the largest element of an array
+	 * @param arr	array to search
+	 * @return		largest element of <code>arr</code>, or 0 if none is larger
+	 */
+	private static double max(double[] arr)
+	{
+		double max = 0.0;
+		
+		for (double p : arr)
+			max = Math.max(max, p);
+		
+		return max;
+	}
+	
+	/**
+	 * Sum the elements of an array
+	 * @param arr	array to sum
+	 * @return		sum of the elements of <code>arr</code>
+	 */
+	private static double sum(double[] arr)
+	{
+		double sum = 0.0;
+		
+		for (double p : arr)
+			sum += p;
+		
+		return sum;
+	}
+	
+	/**
+	 * Find the index of the first nonzero element of an array
+	 * @param arr	array to search
+	 * @return		index of the first nonzero element, or <code>arr.length</code> if there is none
+	 */
+	private static int firstNonzero(double[] arr)
+	{
+		int i = 0;
+		while (i < arr.length && arr[i] == 0.0)
+			i++;
+		
+		return i;
+	}
+	
+	/**
+	 * Find the index of the last nonzero element of an array
+	 * @param arr	array to search
+	 * @return		index of the last nonzero element, or -1 if there is none
+	 */
+	private static int lastNonzero(double[] arr)
+	{
+		int i = arr.length - 1;
+		while (i >= 0 && arr[i] == 0.0)
+			i--;
+		
+		return i;
+	}
+	
+	/**
+	 * Check whether the nonzero elements of an array form a single unbroken range
+	 * @param arr	array to check
+	 * @return		true if no zero lies between two nonzero elements of <code>arr</code>
+	 */
+	private static boolean isContiguous(double[] arr)
+	{
+		final int last = lastNonzero(arr);
+		
+		for (int i = firstNonzero(arr); i < last; i++)
+			if (arr[i] == 0.0)
+				return false;
+		
+		return true;
+	}
+	
+	/**
+	 * Mark which elements of an array are nonzero
+	 * @param arr	array to check
+	 * @return		array holding 1 where <code>arr</code> is nonzero and 0 elsewhere
+	 */
+	private static double[] indicator(double[] arr)
+	{
+		final double[] out = new double[arr.length];
+		
+		for (int i = 0; i < arr.length; i++)
+			if (arr[i] != 0.0)
+				out[i] = 1.0;
+		
+		return out;
+	}
+	
+	/**
+	 * Reverse an array
+	 * @param arr	array to reverse
+	 * @return		new array holding the elements of <code>arr</code> in reverse order
+	 */
+	private static double[] reverse(double[] arr)
+	{
+		final double[] out = new double[arr.length];
+		
+		for (int i = 0; i < arr.length; i++)
+			out[arr.length - 1 - i] = arr[i];
+		
+		return out;
+	}
+	
+	/**
+	 * Perform an in-place iterative radix-2 fast Fourier transform.
+	 * The inverse transform is not scaled by <code>1/n</code>.
+	 * @param re		real parts, of a length which is a power of two
+	 * @param im		imaginary parts, of the same length as <code>re</code>
+	 * @param cos		cosines of <code>2&pi;i/n</code> for <code>i &lt; n/2</code>
+	 * @param sin		sines of <code>2&pi;i/n</code> for <code>i &lt; n/2</code>
+	 * @param inverse	true to perform the inverse transform
+	 */
+	private static void transform(double[] re, double[] im, double[] cos, double[] sin, boolean inverse)
+	{
+		final int n = re.length;
+		
+		for (int i = 1, j = 0; i < n; i++)
+		{
+			int bit = n >> 1;
+			
+			for (; (j & bit) != 0; bit >>= 1)
+				j ^= bit;
+			
+			j ^= bit;
+			
+			if (i < j)
+			{
+				double t = re[i]; re[i] = re[j]; re[j] = t;
+				t = im[i]; im[i] = im[j]; im[j] = t;
+			}
+		}
+		
+		final double sign = inverse ? 1.0 : -1.0;
+		
+		for (int len = 2; len <= n; len <<= 1)
+		{
+			final int half = len >> 1;
+			final int step = n / len;
+			
+			for (int start = 0; start < n; start += len)
+			{
+				for (int k = 0; k < half; k++)
+				{
+					final double wRe = cos[k * step];
+					final double wIm = sign * sin[k * step];
+					
+					final int u = start + k;
+					final int v = u + half;
+					
+					final double vRe = re[v] * wRe - im[v] * wIm;
+					final double vIm = re[v] * wIm + im[v] * wRe;
+					
+					re[v] = re[u] - vRe;
+					im[v] = im[u] - vIm;
+					re[u] += vRe;
+					im[u] += vIm;
+				}
+			}
+		}
+	}
+}
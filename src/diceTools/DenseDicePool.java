@@ -0,0 +1,347 @@
+package diceTools;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Compact representation of a {@link DicePoolMap} whose keys are every combination
+ * of rolling a fixed number of dice with the same number of sides.
+ * <p>Probabilities are stored in a <code>double[]</code> indexed by the {@link MultisetRanking rank}
+ * of each combination, so no key objects are held at all. Keys are only created when
+ * converting back to a <code>DicePoolMap</code>, or when {@link #morph(Function, Supplier) morph}ing.
+ * Combinations with a probability of zero are treated as absent when converting.
+ * <p>A pool of no dice holds a single combination, the empty one.
+ *
+ * @see DicePoolMap#diceRoll(int, int)
+ *
+ * @author kieran
+ */
+public class DenseDicePool
+{
+	/**
+	 * Number of dice in each combination
+	 */
+	private final int numDice;
+	
+	/**
+	 * Number of sides on the dice
+	 */
+	private final int numSides;
+	
+	/**
+	 * Ranking of the combinations
+	 */
+	private final MultisetRanking ranking;
+	
+	/**
+	 * Probability of each combination, indexed by rank
+	 */
+	private final double[] probs;
+	
+	/**
+	 * Constructs a <code>DenseDicePool</code> which takes ownership of an array
+	 * @param numDice	number of dice in each combination
+	 * @param numSides	number of sides on the dice
+	 * @param probs		probability of each combination, indexed by rank
+	 */
+	DenseDicePool(int numDice, int numSides, double[] probs)
+	{
+		this.numDice = numDice;
+		this.numSides = numSides;
+		this.ranking = new MultisetRanking(numDice, numSides);
+		this.probs = probs;
+	}
+	
+	/**
+	 * Generate the <code>DenseDicePool</code> which results from rolling a set of identical unbiased dice
+	 * @param numDice	number of dice to be rolled
+	 * @param sides		number of sides on the dice
+	 * @return			probabilities of all possible combinations
+	 * @throws IllegalArgumentException if there are too many combinations to store in an array
+	 */
+	public static DenseDicePool diceRoll(int numDice, int sides)
+	{
+		if (numDice < 0 || sides <= 0)
+			throw new IllegalArgumentException("Cannot roll a negative number of dice or dice with fewer than one side");
+		
+		double[] probs = new double[arraySize(numDice, sides)];
+		
+		if (numDice == 0)
+			probs[0] = 1.0;
+		
+		DiceRollIterable.Cursor cursor = new DiceRollIterable(numDice, sides).cursor();
+		
+		for (int i = 0; cursor.advance(); i++)
+			probs[i] = cursor.probability();
+		
+		return new DenseDicePool(numDice, sides, probs);
+	}
+	
+	/**
+	 * Find the length of array needed to hold every combination of a set of dice
+	 * @param numDice	number of dice
+	 * @param sides		number of sides on the dice
+	 * @return			number of combinations
+	 * @throws IllegalArgumentException if there are too many combinations to store in an array
+	 */
+	private static int arraySize(int numDice, int sides)
+	{
+		try
+		{
+			final long size = new MultisetRanking(numDice, sides).size();
+			
+			if (size > Integer.MAX_VALUE - 8)
+				throw new IllegalArgumentException("Too many combinations to store in a DenseDicePool");
+			
+			return (int) size;
+		}
+		catch (ArithmeticException e)
+		{
+			throw new IllegalArgumentException("Too many combinations to store in a DenseDicePool", e);
+		}
+	}
+	
+	/**
+	 * Get the number of dice in each combination
+	 * @return		number of dice
+	 */
+	public int getNumDice()
+	{
+		return numDice;
+	}
+	
+	/**
+	 * Get the number of sides on the dice
+	 * @return		number of sides
+	 */
+	public int getNumSides()
+	{
+		return numSides;
+	}
+	
+	/**
+	 * Get the number of combinations held
+	 * @return		length of the probability array
+	 */
+	public int size()
+	{
+		return probs.length;
+	}
+	
+	/**
+	 * Find the rank of a key
+	 * @param key	combination of dice, in any order
+	 * @return		index at which the probability of <code>key</code> is stored,
+	 * 				or <code>-1</code> if <code>key</code> is not a combination of
+	 * 				<code>numDice</code> dice with <code>numSides</code> sides
+	 */
+	public int rank(List<? extends DiceNumber> key)
+	{
+		if (key.size() != numDice)
+			return -1;
+		
+		int[] counts = new int[numSides];
+		
+		for (DiceNumber n : key)
+		{
+			if (n == null || !n.isInt() || n.intValue() < 1 || n.intValue() > numSides)
+				return -1;
+			
+			counts[n.intValue() - 1]++;
+		}
+		
+		return (int) ranking.rank(counts);
+	}
+	
+	/**
+	 * Find the key with a given rank
+	 * @param rank		index at which the probability of the key is stored
+	 * @return			sanitized key, as a {@link DicePoolMap} would store it
+	 * @throws IndexOutOfBoundsException if <code>rank</code> is out of range
+	 */
+	public List<DiceNumber> unrank(int rank)
+	{
+		int[] counts = new int[numSides];
+		ranking.unrank(rank, counts);
+		
+		int[] faces = new int[numDice];
+		int pos = 0;
+		
+		for (int i = 0; i < numSides; i++)
+			for (int c = counts[i]; c > 0; c--)
+				faces[pos++] = i + 1;
+		
+		return DicePoolMap.poolKey(faces, PackedDiceList.canPack(numSides));
+	}
+	
+	/**
+	 * Get the probability of a key
+	 * @param key	combination of dice, in any order
+	 * @return		probability of <code>key</code>, or zero if it is not held
+	 */
+	public double get(List<? extends DiceNumber> key)
+	{
+		final int rank = rank(key);
+		
+		return (rank < 0) ? 0.0 : probs[rank];
+	}
+	
+	/**
+	 * Get the sum of all the probabilities
+	 * @return		total probability
+	 */
+	public double getMass()
+	{
+		double mass = 0.0;
+		
+		for (double prob : probs)
+			mass += prob;
+		
+		return mass;
+	}
+	
+	/**
+	 * Sum the rolls in each combination, in a single pass over the probability array
+	 * @return		{@link DiceRollMap} storing the summed rolls and their probabilities
+	 * @see DicePoolMap#flatten()
+	 */
+	public DiceRollMap flatten()
+	{
+		if (numDice == 0)
+			return DenseRollMap.wrap(0, new double[] {probs[0]}).toRollMap();
+		
+		double[] out = new double[numDice * (numSides - 1) + 1];
+		
+		DiceRollIterable.Cursor cursor = new DiceRollIterable(numDice, numSides).cursor();
+		
+		for (int i = 0; cursor.advance(); i++)
+		{
+			final int[] counts = cursor.counts();
+			int sum = 0;
+			
+			for (int face = 0; face < numSides; face++)
+				sum += counts[face] * face;
+			
+			out[sum] += probs[i];
+		}
+		
+		return DenseRollMap.wrap(numDice, out).toRollMap();
+	}
+	
+	/**
+	 * Keep the highest dice in each combination, discarding the rest
+	 * @param nKeep		number of dice to keep
+	 * @return			<code>DenseDicePool</code> of the kept dice
+	 * @see diceTools.function.KeepN#keepHighestN(int)
+	 */
+	public DenseDicePool keepHighest(int nKeep)
+	{
+		return keep(nKeep, true);
+	}
+	
+	/**
+	 * Keep the lowest dice in each combination, discarding the rest
+	 * @param nKeep		number of dice to keep
+	 * @return			<code>DenseDicePool</code> of the kept dice
+	 * @see diceTools.function.KeepN#keepLowestN(int)
+	 */
+	public DenseDicePool keepLowest(int nKeep)
+	{
+		return keep(nKeep, false);
+	}
+	
+	/**
+	 * Keep the highest or lowest dice in each combination, in a single pass over the probability array.
+	 * The counts of the kept dice are read directly from the counts of each combination.
+	 * @param nKeep		number of dice to keep
+	 * @param highest	<code>true</code> to keep the highest dice, <code>false</code> to keep the lowest
+	 * @return			<code>DenseDicePool</code> of the kept dice
+	 */
+	private DenseDicePool keep(int nKeep, boolean highest)
+	{
+		if (nKeep < 0)
+			throw new IllegalArgumentException("Cannot keep a negative number of dice");
+		
+		if (nKeep >= numDice)
+			return this;
+		
+		MultisetRanking keptRanking = new MultisetRanking(nKeep, numSides);
+		double[] out = new double[arraySize(nKeep, numSides)];
+		int[] kept = new int[numSides];
+		
+		DiceRollIterable.Cursor cursor = new DiceRollIterable(numDice, numSides).cursor();
+		
+		for (int i = 0; cursor.advance(); i++)
+		{
+			final int[] counts = cursor.counts();
+			int toKeep = nKeep;
+			
+			for (int j = 0; j < numSides; j++)
+			{
+				final int face = highest ? (numSides - 1 - j) : j;
+				kept[face] = Math.min(counts[face], toKeep);
+				toKeep -= kept[face];
+			}
+			
+			out[(int) keptRanking.rank(kept)] += probs[i];
+		}
+		
+		return new DenseDicePool(nKeep, numSides, out);
+	}
+	
+	/**
+	 * Map each combination to a key in a new <code>ProbMap</code>
+	 * @param <T>	type of the keys of the generated <code>ProbMap</code>
+	 * @param f		rule for mapping combinations, which receives sanitized keys
+	 * @param s		{@link java.util.function.Supplier Supplier}
+	 * 				which can {@link java.util.function.Supplier#get get}()
+	 * 				an empty <code>ProbMap</code> with keys of the new type
+	 * @return		<code>ProbMap</code> containing the morphed data, created using <code>s.get()</code>
+	 * @see ProbMap#morph(Function, Supplier)
+	 */
+	public <T> ProbMap<T> morph(Function<? super List<DiceNumber>, ? extends T> f, Supplier<? extends ProbMap<T>> s)
+	{
+		ProbMapBuilder<T> builder = new ProbMapBuilder<T>(s.get());
+		final boolean packed = PackedDiceList.canPack(numSides);
+		
+		if (numDice == 0 && probs[0] != 0.0)
+			builder.add(f.apply(unrank(0)), probs[0]);
+		
+		DiceRollIterable.Cursor cursor = new DiceRollIterable(numDice, numSides).cursor();
+		
+		for (int i = 0; cursor.advance(); i++)
+			if (probs[i] != 0.0)
+				builder.add(f.apply(DicePoolMap.poolKey(cursor.faces(), packed)), probs[i]);
+		
+		return builder.build();
+	}
+	
+	/**
+	 * Convert the <code>DenseDicePool</code> to a {@link DicePoolMap}
+	 * @return		<code>DicePoolMap</code> containing each combination with a non-zero probability
+	 */
+	public DicePoolMap toDicePoolMap()
+	{
+		ProbMapBuilder<List<? extends DiceNumber>> builder =
+				new ProbMapBuilder<List<? extends DiceNumber>>(new DicePoolMap(), true);
+		final boolean packed = PackedDiceList.canPack(numSides);
+		
+		if (numDice == 0 && probs[0] != 0.0)
+			builder.add(unrank(0), probs[0]);
+		
+		DiceRollIterable.Cursor cursor = new DiceRollIterable(numDice, numSides).cursor();
+		
+		for (int i = 0; cursor.advance(); i++)
+			if (probs[i] != 0.0)
+				builder.add(DicePoolMap.poolKey(cursor.faces(), packed), probs[i]);
+		
+		return (DicePoolMap) builder.build();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return toDicePoolMap().toString();
+	}
+}
@@ -0,0 +1,728 @@
+package diceTools;
+
+import java.util.Arrays;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Compact representation of a {@link DiceRollMap} whose keys are all integers
+ * lying in a dense range.
+ * <p>Probabilities are stored in a <code>double[]</code>, where the probability of
+ * the key <code>offset + i</code> is held at index <code>i</code>.
+ * Keys with a probability of zero are treated as absent when converting back
+ * to a <code>DiceRollMap</code>.
+ *
+ * @see DiceRollMap#toDense()
+ *
+ * @author kieran
+ */
+public class DenseRollMap
+{
+	/**
+	 * Maximum ratio of the key range to the number of keys
+	 * for which a <code>DiceRollMap</code> is considered dense
+	 */
+	private static final int MAX_SPARSITY = 4;
+	
+	/**
+	 * Number of additional array slots permitted when checking density,
+	 * so that very small maps with gaps are still considered dense
+	 */
+	private static final int SPARSITY_SLACK = 16;
+	
+	/**
+	 * Key whose probability is stored at index 0 of {@link #probs}
+	 */
+	private final int offset;
+	
+	/**
+	 * Probabilities of the keys <code>offset</code> to <code>offset + probs.length - 1</code>
+	 */
+	private final double[] probs;
+	
+	/**
+	 * Constructs a <code>DenseRollMap</code> which takes ownership of an array
+	 * @param offset	key whose probability is stored at index 0 of <code>probs</code>
+	 * @param probs		probabilities of consecutive keys starting at <code>offset</code>
+	 */
+	private DenseRollMap(int offset, double[] probs)
+	{
+		if ((long) offset + probs.length - 1 > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Keys of a DenseRollMap must fit in an int");
+		
+		this.offset = offset;
+		this.probs = probs;
+	}
+	
+	/**
+	 * Create a <code>DenseRollMap</code> with probabilities copied from an array
+	 * @param offset	key whose probability is stored at index 0 of <code>probs</code>
+	 * @param probs		probabilities of consecutive keys starting at <code>offset</code>
+	 * @return			<code>DenseRollMap</code> holding a copy of <code>probs</code>
+	 */
+	public static DenseRollMap copyOf(int offset, double[] probs)
+	{
+		return new DenseRollMap(offset, Arrays.copyOf(probs, probs.length));
+	}
+	
+	/**
+	 * Create a <code>DenseRollMap</code> which takes ownership of an array, without copying it.
+	 * The caller must not modify <code>probs</code> afterwards.
+	 * @param offset	key whose probability is stored at index 0 of <code>probs</code>
+	 * @param probs		probabilities of consecutive keys starting at <code>offset</code>
+	 * @return			<code>DenseRollMap</code> backed by <code>probs</code>
+	 */
+	static DenseRollMap wrap(int offset, double[] probs)
+	{
+		return new DenseRollMap(offset, probs);
+	}
+	
+	/**
+	 * Create a <code>DenseRollMap</code> holding the same data as a <code>ProbMap</code>
+	 * if its keys are all integers lying in a dense range.
+	 * @param pm	<code>ProbMap</code> to convert
+	 * @return		the equivalent <code>DenseRollMap</code>, or <code>null</code> if any key
+	 * 				of <code>pm</code> is not an integer or the keys are too sparse
+	 */
+	public static DenseRollMap fromRollMap(ProbMap<? extends DiceNumber> pm)
+	{
+		if (pm.isEmpty())
+			return wrap(0, new double[0]);
+		
+		for (DiceNumber key : pm.keySet())
+			if (!key.isInt())
+				return null;
+		
+		final int min = pm.firstKey().intValue();
+		final int max = pm.lastKey().intValue();
+		final long span = (long) max - min + 1;
+		
+		if (span > (long) MAX_SPARSITY * pm.size() + SPARSITY_SLACK)
+			return null;
+		
+		double[] probs = new double[(int) span];
+		
+		for (Entry<? extends DiceNumber, Double> entry : pm.rawEntrySet())
+			probs[entry.getKey().intValue() - min] += entry.getValue();
+		
+		return wrap(min, probs);
+	}
+	
+	/**
+	 * Generate the <code>DenseRollMap</code> of the sum of rolling a set of identical unbiased dice.
+	 * <p>The distribution is built by convolving with one die at a time, where each
+	 * convolution is a sliding window sum costing O(range). Since the distribution is
+	 * symmetric, only its rising half is computed and the rest is mirrored, which keeps the
+	 * window subtractions free of cancellation error in the tails. Probabilities too small to
+	 * represent as a <code>double</code> underflow to zero.
+	 * @param numDice	number of dice to be rolled
+	 * @param sides		number of sides on the dice
+	 * @return			probabilities of all possible sums
+	 */
+	public static DenseRollMap diceRoll(int numDice, int sides)
+	{
+		if (numDice < 0 || sides <= 0)
+			throw new IllegalArgumentException("Cannot roll a negative number of dice or dice with fewer than one side");
+		
+		if ((long) numDice * (sides - 1) + 1 > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Too many possible sums to store in a DenseRollMap");
+		
+		final double faceProb = 1.0 / sides;
+		
+		double[] probs = new double[] {1.0};
+		
+		for (int die = 0; die < numDice; die++)
+		{
+			final double[] next = new double[probs.length + sides - 1];
+			final int half = (next.length - 1) / 2;
+			double window = 0.0;
+			
+			for (int k = 0; k <= half; k++)
+			{
+				if (k < probs.length)
+					window += probs[k];
+				
+				if (k - sides >= 0)
+					window -= probs[k - sides];
+				
+				next[k] = window * faceProb;
+			}
+			
+			for (int k = half + 1; k < next.length; k++)
+				next[k] = next[next.length - 1 - k];
+			
+			probs = next;
+		}
+		
+		return wrap(numDice, probs);
+	}
+	
+	/**
+	 * Generate the <code>DenseRollMap</code> of the sum of the highest dice
+	 * in a roll of identical unbiased dice
+	 * @param numDice	number of dice to be rolled
+	 * @param sides		number of sides on the dice
+	 * @param nKeep		number of dice to keep
+	 * @return			probabilities of all possible sums of the kept dice
+	 * @see #keep(int, int, int, boolean)
+	 */
+	public static DenseRollMap keepHighest(int numDice, int sides, int nKeep)
+	{
+		return keep(numDice, sides, nKeep, true);
+	}
+	
+	/**
+	 * Generate the <code>DenseRollMap</code> of the sum of the lowest dice
+	 * in a roll of identical unbiased dice
+	 * @param numDice	number of dice to be rolled
+	 * @param sides		number of sides on the dice
+	 * @param nKeep		number of dice to keep
+	 * @return			probabilities of all possible sums of the kept dice
+	 * @see #keep(int, int, int, boolean)
+	 */
+	public static DenseRollMap keepLowest(int numDice, int sides, int nKeep)
+	{
+		return keep(numDice, sides, nKeep, false);
+	}
+	
+	/**
+	 * Generate the <code>DenseRollMap</code> of the sum of the highest or lowest dice
+	 * in a roll of identical unbiased dice, without enumerating the combinations of the roll.
+	 * <p>The faces are visited one at a time, starting from the face whose dice are kept first.
+	 * While fewer than <code>nKeep</code> dice have been placed, every placed die is kept, and the
+	 * remaining dice are uniformly distributed over the faces not yet visited, so the number of them
+	 * showing the current face is binomially distributed. Once <code>nKeep</code> dice have been placed
+	 * the sum of the kept dice is final, so its probability is moved straight to the result.
+	 * This costs O(<code>sides * nKeep * (numDice + nKeep * nKeep * sides)</code>) time.
+	 * @param numDice	number of dice to be rolled
+	 * @param sides		number of sides on the dice
+	 * @param nKeep		number of dice to keep
+	 * @param highest	<code>true</code> to keep the highest dice, <code>false</code> to keep the lowest
+	 * @return			probabilities of all possible sums of the kept dice
+	 */
+	private static DenseRollMap keep(int numDice, int sides, int nKeep, boolean highest)
+	{
+		if (numDice < 0 || sides <= 0)
+			throw new IllegalArgumentException("Cannot roll a negative number of dice or dice with fewer than one side");
+		
+		if (nKeep <= 0)
+			return wrap(0, new double[] {1.0});
+		
+		if (nKeep >= numDice)
+			return diceRoll(numDice, sides);
+		
+		if ((long) nKeep * (sides - 1) + 1 > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Too many possible sums to store in a DenseRollMap");
+		
+		//Sums are of (face - 1) over the kept dice, so the sum of nKeep ones is stored at index 0
+		final int span = nKeep * (sides - 1) + 1;
+		double[] out = new double[span];
+		
+		//open[placed][sum]: probability that exactly 'placed' dice show the faces visited so far
+		double[][] open = new double[nKeep][span];
+		open[0][0] = 1.0;
+		
+		for (int step = 0; step < sides; step++)
+		{
+			final int face = highest ? (sides - 1 - step) : step;
+			final int facesLeft = sides - step;
+			double[][] next = new double[nKeep][span];
+			
+			for (int placed = 0; placed < nKeep; placed++)
+			{
+				final int need = nKeep - placed;
+				final double[] pmf = binomialPmf(numDice - placed, facesLeft);
+				
+				double tail = 0.0;
+				
+				for (int c = pmf.length - 1; c >= need; c--)
+					tail += pmf[c];
+				
+				for (int sum = 0; sum < span; sum++)
+				{
+					final double prob = open[placed][sum];
+					
+					if (prob == 0.0)
+						continue;
+					
+					for (int c = 0; c < need; c++)
+						next[placed + c][sum + c * face] += prob * pmf[c];
+					
+					out[sum + need * face] += prob * tail;
+				}
+			}
+			
+			open = next;
+		}
+		
+		return wrap(nKeep, out);
+	}
+	
+	/**
+	 * Generate the <code>DenseRollMap</code> of the number of successes scored by a set of identical dice,
+	 * where each die independently scores a number of successes with given probabilities.
+	 * <p>With a single tier of success the count is binomially distributed, so it costs O(<code>numDice</code>) time.
+	 * With more tiers the dice are assigned to the tiers one at a time, starting from the highest tier.
+	 * The number of unassigned dice falling in each tier is binomially distributed, with the probability of the
+	 * tier conditional on a die not falling in any higher tier, so the counts of all the tiers follow their
+	 * multinomial distribution without enumerating the rolls. Two tiers cost O(<code>numDice<sup>2</sup></code>) time,
+	 * spent on arithmetic rather than logarithms.
+	 * @param numDice	number of dice to be rolled
+	 * @param tierProbs	probability that a die scores exactly <code>k + 1</code> successes, at index <code>k</code>.
+	 * 					A die scores no successes with the remaining probability.
+	 * @return			probabilities of all possible numbers of successes
+	 * @throws IllegalArgumentException if <code>numDice</code> is negative, or the probabilities are
+	 * 									negative or sum to more than one
+	 */
+	public static DenseRollMap countSuccesses(int numDice, double... tierProbs)
+	{
+		if (numDice < 0)
+			throw new IllegalArgumentException("Cannot roll a negative number of dice");
+		
+		final int tiers = tierProbs.length;
+		double[] rest = new double[tiers + 1];
+		
+		for (int k = 0; k < tiers; k++)
+		{
+			if (!(tierProbs[k] >= 0.0))
+				throw new IllegalArgumentException("Probabilities of success must be non-negative");
+			
+			rest[k + 1] = rest[k] + tierProbs[k];
+		}
+		
+		if (rest[tiers] > 1.0 + 1e-9)
+			throw new IllegalArgumentException("Probabilities of success cannot sum to more than one");
+		
+		//rest[k]: probability that a die scores at most k successes
+		final double fail = Math.max(0.0, 1.0 - rest[tiers]);
+		
+		for (int k = 0; k <= tiers; k++)
+			rest[k] += fail;
+		
+		if ((long) tiers * numDice + 1 > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Too many possible counts to store in a DenseRollMap");
+		
+		double[] out = new double[tiers * numDice + 1];
+		
+		if (tiers == 0)
+		{
+			out[0] = 1.0;
+			return wrap(0, out);
+		}
+		
+		//open[r][i]: probability that r dice are unassigned and the assigned dice score (lowest possible + i)
+		double[][] open = new double[numDice + 1][];
+		open[numDice] = new double[] {1.0};
+		
+		for (int tier = tiers; tier >= 1; tier--)
+		{
+			final double hit = (rest[tier] > 0.0) ? tierProbs[tier - 1] / rest[tier] : 0.0;
+			double[][] next = (tier > 1) ? new double[numDice + 1][] : null;
+			double[] pmf = null;
+			
+			for (int r = 0; r <= numDice; r++)
+			{
+				if (open[r] == null)
+					continue;
+				
+				final int assigned = numDice - r;
+				final int low = (tier + 1) * assigned;
+				
+				//Consecutive numbers of dice are stepped along Pascal's triangle rather than recalculated
+				if (pmf != null && pmf.length == r)
+					pmf = binomialStep(pmf, hit);
+				else
+					pmf = binomialPmf(r, hit);
+				
+				for (int i = 0; i < open[r].length; i++)
+				{
+					final double prob = open[r][i];
+					
+					if (prob == 0.0)
+						continue;
+					
+					for (int x = 0; x <= r; x++)
+					{
+						final double p = prob * pmf[x];
+						
+						if (p == 0.0)
+							continue;
+						
+						final int score = low + i + x * tier;
+						
+						if (next == null)
+						{
+							out[score] += p;
+							continue;
+						}
+						
+						final int left = r - x;
+						
+						if (next[left] == null)
+							next[left] = new double[(tiers - tier) * (numDice - left) + 1];
+						
+						next[left][score - tier * (numDice - left)] += p;
+					}
+				}
+			}
+			
+			open = next;
+		}
+		
+		return wrap(0, out);
+	}
+	
+	/**
+	 * Find the distribution of the number of dice showing one particular face,
+	 * when every die shows one of a number of equally likely faces
+	 * @param numDice	number of dice
+	 * @param faces		number of equally likely faces, at least one
+	 * @return			probability that <code>c</code> dice show the face, at index <code>c</code>
+	 */
+	private static double[] binomialPmf(int numDice, int faces)
+	{
+		if (faces == 1)
+		{
+			double[] pmf = new double[numDice + 1];
+			pmf[numDice] = 1.0;
+			return pmf;
+		}
+		
+		return binomialPmf(numDice, -Math.log(faces), Math.log1p(-1.0 / faces));
+	}
+	
+	/**
+	 * Find the distribution of the number of dice which hit,
+	 * when every die independently hits with the same probability
+	 * @param numDice	number of dice
+	 * @param hit		probability that a die hits
+	 * @return			probability that <code>c</code> dice hit, at index <code>c</code>
+	 */
+	private static double[] binomialPmf(int numDice, double hit)
+	{
+		if (hit <= 0.0 || hit >= 1.0)
+		{
+			double[] pmf = new double[numDice + 1];
+			pmf[hit <= 0.0 ? 0 : numDice] = 1.0;
+			return pmf;
+		}
+		
+		return binomialPmf(numDice, Math.log(hit), Math.log1p(-hit));
+	}
+	
+	/**
+	 * Find the distribution of the number of dice which hit when one more die is rolled
+	 * @param pmf	probability that <code>c</code> dice hit, at index <code>c</code>
+	 * @param hit	probability that a die hits
+	 * @return		probability that <code>c</code> dice hit after rolling another die, at index <code>c</code>
+	 */
+	private static double[] binomialStep(double[] pmf, double hit)
+	{
+		final double miss = 1.0 - hit;
+		double[] next = new double[pmf.length + 1];
+		
+		for (int c = 0; c < pmf.length; c++)
+		{
+			next[c] += pmf[c] * miss;
+			next[c + 1] += pmf[c] * hit;
+		}
+		
+		return next;
+	}
+	
+	/**
+	 * Find the binomial distribution of the number of dice which hit
+	 * @param numDice	number of dice
+	 * @param logHit	logarithm of the probability that a die hits
+	 * @param logMiss	logarithm of the probability that a die misses
+	 * @return			probability that <code>c</code> dice hit, at index <code>c</code>
+	 */
+	private static double[] binomialPmf(int numDice, double logHit, double logMiss)
+	{
+		double[] pmf = new double[numDice + 1];
+		
+		//Work with logarithms so that no term underflows before the others are scaled,
+		//then rescale so that the rounding errors of the logarithms do not leak probability
+		double logChoose = 0.0;
+		double total = 0.0;
+		
+		for (int c = 0; c <= numDice; c++)
+		{
+			pmf[c] = Math.exp(logChoose + c * logHit + (numDice - c) * logMiss);
+			total += pmf[c];
+			logChoose += Math.log(numDice - c) - Math.log(c + 1);
+		}
+		
+		for (int c = 0; c <= numDice; c++)
+			pmf[c] /= total;
+		
+		return pmf;
+	}
+	
+	/**
+	 * Convert the <code>DenseRollMap</code> to a {@link DiceRollMap}
+	 * @return		<code>DiceRollMap</code> containing each key with a non-zero probability
+	 */
+	public DiceRollMap toRollMap()
+	{
+		ProbMapBuilder<DiceNumber> builder = new ProbMapBuilder<DiceNumber>(new DiceRollMap(), true);
+		
+		for (int i = 0; i < probs.length; i++)
+			if (probs[i] != 0.0)
+				builder.add(new DiceNumber.DiceInteger(offset + i), probs[i]);
+		
+		return (DiceRollMap) builder.build();
+	}
+	
+	/**
+	 * Get the smallest key held by the <code>DenseRollMap</code>
+	 * @return		the key whose probability is stored first
+	 */
+	public int minKey()
+	{
+		return offset;
+	}
+	
+	/**
+	 * Get the largest key held by the <code>DenseRollMap</code>
+	 * @return		the key whose probability is stored last
+	 */
+	public int maxKey()
+	{
+		return offset + probs.length - 1;
+	}
+	
+	/**
+	 * Get the number of consecutive keys spanned by the <code>DenseRollMap</code>
+	 * @return		length of the probability array
+	 */
+	public int span()
+	{
+		return probs.length;
+	}
+	
+	/**
+	 * Check whether the <code>DenseRollMap</code> spans any keys
+	 * @return		true iff the <code>DenseRollMap</code> spans no keys
+	 */
+	public boolean isEmpty()
+	{
+		return probs.length == 0;
+	}
+	
+	/**
+	 * Get the probability of a key
+	 * @param key	key to look up
+	 * @return		probability of the key, or zero if it lies outside the range of the <code>DenseRollMap</code>
+	 */
+	public double get(int key)
+	{
+		final long i = (long) key - offset;
+		
+		if (i < 0 || i >= probs.length)
+			return 0.0;
+		
+		return probs[(int) i];
+	}
+	
+	/**
+	 * Get a copy of the probabilities held by the <code>DenseRollMap</code>
+	 * @return		probabilities of consecutive keys starting at {@link #minKey()}
+	 */
+	public double[] toArray()
+	{
+		return Arrays.copyOf(probs, probs.length);
+	}
+	
+	/**
+	 * Sum all the probabilities in the <code>DenseRollMap</code>
+	 * @return		total probability
+	 */
+	public double getMass()
+	{
+		double mass = 0.0;
+		
+		for (double p : probs)
+			mass += p;
+		
+		return mass;
+	}
+	
+	/**
+	 * Negate each key in the <code>DenseRollMap</code>
+	 * @return		<code>DenseRollMap</code> in which the probability of each key
+	 * 				is the probability of its negation in the calling <code>DenseRollMap</code>
+	 */
+	public DenseRollMap negate()
+	{
+		final double[] out = new double[probs.length];
+		
+		for (int i = 0; i < probs.length; i++)
+			out[probs.length - 1 - i] = probs[i];
+		
+		return wrap(-maxKey(), out);
+	}
+	
+	/**
+	 * Generate all the possible results of summing the keys of the calling
+	 * <code>DenseRollMap</code> with the keys of a given <code>DenseRollMap</code>.
+	 * Large maps are convolved using a fast Fourier transform.
+	 * @param drm	<code>DenseRollMap</code> to combine
+	 * @return		resulting <code>DenseRollMap</code>
+	 */
+	public DenseRollMap combine(DenseRollMap drm)
+	{
+		if (this.isEmpty() || drm.isEmpty())
+			return wrap(0, new double[0]);
+		
+		final double[] out = Convolution.convolve(this.probs, drm.probs);
+		
+		return wrap(this.offset + drm.offset, out);
+	}
+	
+	/**
+	 * Generate the <code>DenseRollMap</code> of the sum of a number of independent rolls of the calling <code>DenseRollMap</code>.
+	 * The sum is found by repeatedly {@link #combine(DenseRollMap) combining} the sums of powers of two rolls,
+	 * so only O(<code>log n</code>) convolutions are made.
+	 * @param n		number of rolls
+	 * @return		<code>DenseRollMap</code> of the sum,
+	 * 				or an empty <code>DenseRollMap</code> if <code>n</code> is not positive
+	 */
+	public DenseRollMap sumOf(int n)
+	{
+		DenseRollMap sum = null;
+		DenseRollMap square = this;
+		
+		while (n > 0)
+		{
+			if ((n & 1) != 0)
+				sum = (sum == null) ? square : sum.combine(square);
+			
+			n >>>= 1;
+			
+			if (n > 0)
+				square = square.combine(square);
+		}
+		
+		if (sum == null)
+			return wrap(0, new double[0]);
+		
+		return (sum == this) ? copyOf(offset, probs) : sum;
+	}
+	
+	/**
+	 * Map each key in the <code>DenseRollMap</code> to a key in a new <code>DenseRollMap</code>.
+	 * Probabilities of keys mapped to the same key are summed.
+	 * @param f		rule for mapping keys
+	 * @return		<code>DenseRollMap</code> containing the morphed data
+	 * @throws IllegalArgumentException if the morphed keys span too large a range to store
+	 */
+	public DenseRollMap morph(IntUnaryOperator f)
+	{
+		if (isEmpty())
+			return wrap(0, new double[0]);
+		
+		final int[] newKeys = new int[probs.length];
+		int min = Integer.MAX_VALUE;
+		int max = Integer.MIN_VALUE;
+		
+		for (int i = 0; i < probs.length; i++)
+		{
+			if (probs[i] == 0.0)
+				continue;
+			
+			final int k = f.applyAsInt(offset + i);
+			newKeys[i] = k;
+			min = Math.min(min, k);
+			max = Math.max(max, k);
+		}
+		
+		if (min > max)
+			return wrap(0, new double[0]);
+		
+		final long span = (long) max - min + 1;
+		
+		if (span > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Morphed keys span too large a range for a DenseRollMap");
+		
+		double[] out = new double[(int) span];
+		
+		for (int i = 0; i < probs.length; i++)
+			if (probs[i] != 0.0)
+				out[newKeys[i] - min] += probs[i];
+		
+		return wrap(min, out);
+	}
+	
+	/**
+	 * Normalise the probabilities in the <code>DenseRollMap</code> so that they sum to unity.
+	 */
+	public void normalise()
+	{
+		normalise(1.0);
+	}
+	
+	/**
+	 * Normalise the probabilities in the <code>DenseRollMap</code> so that they sum to a given value.
+	 * @param norm		normalising value. After returning, the probabilities in the
+	 * 					<code>DenseRollMap</code> sum to this value
+	 */
+	public void normalise(double norm)
+	{
+		final double probMod = norm / getMass();
+		
+		for (int i = 0; i < probs.length; i++)
+			probs[i] *= probMod;
+	}
+	
+	/**
+	 * Find the mean average of the <code>DenseRollMap</code>
+	 * @return		the sum of keys multiplied by their probabilities,
+	 * 				or <code>NaN</code> if the <code>DenseRollMap</code> is empty
+	 */
+	public double getMean()
+	{
+		if (isEmpty())
+			return Double.NaN;
+		
+		double mean = 0.0;
+		
+		for (int i = 0; i < probs.length; i++)
+			mean += (double) (offset + i) * probs[i];
+		
+		return mean;
+	}
+	
+	/**
+	 * Find the median average of the <code>DenseRollMap</code>
+	 * @return		the first key which, when its probability is summed with the
+	 * 				probabilities of all preceding keys, results in a probability
+	 * 				greater than or equal to half the sum of all the probabilities
+	 * @throws NoSuchElementException if the <code>DenseRollMap</code> is empty
+	 */
+	public int getMedian()
+	{
+		if (isEmpty())
+			throw new NoSuchElementException("Cannot find the median of an empty DenseRollMap");
+		
+		final double probTarget = getMass() / 2;
+		double probSoFar = 0.0;
+		
+		for (int i = 0; i < probs.length; i++)
+		{
+			probSoFar += probs[i];
+			if (probSoFar >= probTarget)
+				return offset + i;
+		}
+		
+		//Only reached if rounding prevents the target being met
+		return maxKey();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return toRollMap().toString();
+	}
+}
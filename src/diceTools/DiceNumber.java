@@ -14,6 +14,34 @@ public abstract class DiceNumber extends Number implements Comparable<Number>
 	 */
 	private DiceNumber() {}
 	
+	/**
+	 * Shared <code>DiceInteger</code>s for the faces which {@link PackedDiceList} can hold
+	 */
+	private static final DiceInteger[] intCache;
+	
+	static
+	{
+		intCache = new DiceInteger[PackedDiceList.MAX_FACE - PackedDiceList.MIN_FACE + 1];
+		
+		for (int i = 0; i < intCache.length; i++)
+			intCache[i] = new DiceInteger(i + PackedDiceList.MIN_FACE);
+	}
+	
+	/**
+	 * Get a {@code DiceInteger} storing a given <code>int</code>.
+	 * Small values are taken from a cache rather than being allocated.
+	 * 
+	 * @param value		<code>int</code> to store
+	 * @return			{@code DiceInteger} storing <code>value</code>
+	 */
+	public static DiceInteger valueOf(int value)
+	{
+		if (value >= PackedDiceList.MIN_FACE && value <= PackedDiceList.MAX_FACE)
+			return intCache[value - PackedDiceList.MIN_FACE];
+		
+		return new DiceInteger(value);
+	}
+	
 	/**
 	 * Create a {@code DiceNumber} which is a copy of a given {@code DiceNumber}
 	 * 
@@ -60,6 +88,21 @@ public abstract class DiceNumber extends Number implements Comparable<Number>
 			return doubleValue() == dn.doubleValue();
 	}
 	
+	/**
+	 * Returns a hash code consistent with {@link #equals(Object)}.
+	 * <code>0.0</code> and <code>-0.0</code> are equal, so share a hash code.
+	 */
+	@Override
+	public int hashCode()
+	{
+		if (isInt())
+			return Integer.hashCode(intValue());
+		
+		final double d = doubleValue();
+		
+		return Double.hashCode(d == 0.0 ? 0.0 : d);
+	}
+	
 	@Override
 	public String toString()
 	{
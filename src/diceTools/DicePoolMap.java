@@ -2,14 +2,16 @@ package diceTools;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Spliterator;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.stream.StreamSupport;
 
 /**
  * Implementation of {@link ProbMap} with <code>List&lt;{@link DiceNumber}&gt;</code> values used for event keys.
@@ -52,6 +54,9 @@ public class DicePoolMap extends ProbMap<List<? extends DiceNumber>>
 			@Override
 			public DiceNumber apply(List<? extends DiceNumber> key)
 			{
+				if (key instanceof PackedDiceList)
+					return DiceNumber.valueOf(((PackedDiceList) key).sum());
+				
 				boolean isDouble = false;
 				int intTotal = 0;
 				double doubleTotal = 0.0;
@@ -82,9 +87,27 @@ public class DicePoolMap extends ProbMap<List<? extends DiceNumber>>
 			@Override
 			public List<DiceNumber> apply(List<? extends DiceNumber> t, DiceNumber u)
 			{
-				List<DiceNumber> newList = new LinkedList<DiceNumber>(t);
-				newList.add(u);
-				return newList;
+				if (t instanceof PackedDiceList && u.isInt() && PackedDiceList.canPack(u.intValue()))
+					return ((PackedDiceList) t).with(u.intValue());
+				
+				DiceNumber[] newArr = new DiceNumber[t.size() + 1];
+				int i = 0;
+				
+				for (DiceNumber n : t)
+				{
+					if (u != null && n.compareTo(u) > 0)
+					{
+						newArr[i++] = u;
+						u = null;
+					}
+					
+					newArr[i++] = n;
+				}
+				
+				if (u != null)
+					newArr[i] = u;
+				
+				return SortedDiceList.ofSorted(newArr);
 			}
 		};
 		
@@ -93,9 +116,7 @@ public class DicePoolMap extends ProbMap<List<? extends DiceNumber>>
 			@Override
 			public List<DiceNumber> apply(List<? extends DiceNumber> t, List<? extends DiceNumber> u)
 			{
-				List<DiceNumber> newList = new LinkedList<DiceNumber>(t);
-				newList.addAll(u);
-				return newList;
+				return SortedDiceList.merge(t, u);
 			}
 		};
 		
@@ -105,6 +126,9 @@ public class DicePoolMap extends ProbMap<List<? extends DiceNumber>>
 			@Override
 			public int compare(List<? extends DiceNumber> listA, List<? extends DiceNumber> listB)
 			{
+				if (listA instanceof PackedDiceList && listB instanceof PackedDiceList)
+					return ((PackedDiceList) listA).compareTo((PackedDiceList) listB);
+				
 				final int sizeA = listA.size();
 				final int sizeB = listB.size();
 				
@@ -141,13 +165,15 @@ public class DicePoolMap extends ProbMap<List<? extends DiceNumber>>
 	
 	public DicePoolMap(DiceRollMap drm)
 	{
-		super();
-		for (Entry<DiceNumber, Double> drmEntry : drm.entrySet())
-		{
-			List<DiceNumber> drmInt = new ArrayList<DiceNumber>(1);
-			drmInt.add(drmEntry.getKey());
-			this.put(drmInt, drmEntry.getValue());
-		}
+		super(listCompare);
+		
+		ProbMapBuilder<List<? extends DiceNumber>> builder =
+				new ProbMapBuilder<List<? extends DiceNumber>>(this, true);
+		
+		for (Entry<DiceNumber, Double> drmEntry : drm.rawEntrySet())
+			builder.add(singletonKey(drmEntry.getKey()), drmEntry.getValue());
+		
+		builder.build();
 	}
 	
 	@Override
@@ -163,13 +189,64 @@ public class DicePoolMap extends ProbMap<List<? extends DiceNumber>>
 		return true;
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 * <p>Keys holding only <code>int</code>s which {@link PackedDiceList#canPack(int) can be packed}
+	 * are stored as {@link PackedDiceList}s. Other keys are stored as {@link SortedDiceList}s.
+	 * A key which is already in one of these forms is returned as it is,
+	 * so keys produced by the <code>DicePoolMap</code>'s own operations and by the list operators
+	 * in {@link diceTools.function} are not copied or sorted again.
+	 * Other implementations of <code>SortedDiceList</code> are checked rather than trusted,
+	 * so that a key which is out of order cannot be stored separately from the same values in order.
+	 */
 	@Override
 	public List<DiceNumber> sanitizeKey(List<? extends DiceNumber> key)
 	{
-		List<DiceNumber> sanitizedKey = new LinkedList<DiceNumber>(key);
-		Collections.sort(sanitizedKey);
-		sanitizedKey = new ImmutableList<DiceNumber>(sanitizedKey);
-		return sanitizedKey;
+		if (PackedDiceList.canPack(key))
+			return PackedDiceList.of(key);
+		
+		if (SortedArrayDiceList.isTrusted(key))
+			return (SortedDiceList) key;
+		
+		DiceNumber[] sortedKey = key.toArray(new DiceNumber[key.size()]);
+		
+		if (!((key instanceof ImmutableList || key instanceof SortedDiceList) && isSorted(key)))
+			Arrays.sort(sortedKey);
+		
+		return new SortedArrayDiceList(sortedKey);
+	}
+	
+	/**
+	 * Check whether the <code>DiceNumber</code>s in a <code>List</code> are in ascending order
+	 * @param key	<code>List</code> to check
+	 * @return		<code>true</code> if no <code>DiceNumber</code> is greater than the one after it
+	 */
+	private static boolean isSorted(List<? extends DiceNumber> key)
+	{
+		DiceNumber last = null;
+		
+		for (DiceNumber n : key)
+		{
+			if (last != null && last.compareTo(n) > 0)
+				return false;
+			
+			last = n;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Make a sanitized key holding a single <code>DiceNumber</code>
+	 * @param n		<code>DiceNumber</code> to hold
+	 * @return		<code>List</code> containing only <code>n</code>
+	 */
+	private static List<DiceNumber> singletonKey(DiceNumber n)
+	{
+		if (n.isInt() && PackedDiceList.canPack(n.intValue()))
+			return PackedDiceList.of(n.intValue());
+		
+		return new SortedArrayDiceList(new DiceNumber[] {n});
 	}
 	
 	@Override
@@ -187,7 +264,7 @@ public class DicePoolMap extends ProbMap<List<? extends DiceNumber>>
 			DiceNumber[] keyArr = new DiceNumber[intArr.length];
 			
 			for (int i = 0; i < intArr.length; i++)
-				keyArr[i] = new DiceNumber.DiceInteger(intArr[i]);
+				keyArr[i] = DiceNumber.valueOf(intArr[i]);
 			
 			return Arrays.asList(keyArr);
 		}
@@ -203,6 +280,10 @@ public class DicePoolMap extends ProbMap<List<? extends DiceNumber>>
 			return Arrays.asList(keyArr);
 		}
 		
+		//Sorted keys are immutable, so need not be copied
+		if (SortedArrayDiceList.isTrusted(oKey))
+			return (SortedDiceList) oKey;
+		
 		@SuppressWarnings("unchecked")
 		List<? extends DiceNumber> key = (List<? extends DiceNumber>) oKey;
 		return new LinkedList<DiceNumber>(key);
@@ -215,7 +296,9 @@ public class DicePoolMap extends ProbMap<List<? extends DiceNumber>>
 	}
 	
 	/**
-	 * Generate the {@link DicePoolMap} which results from rolling a set of identical unbiased dice 
+	 * Generate the {@link DicePoolMap} which results from rolling a set of identical unbiased dice.
+	 * When the number of combinations reaches the {@link ProbMap#getParallelThreshold() parallel threshold},
+	 * they are enumerated in parallel by splitting the {@link DiceRollIterable#spliterator(Function) Spliterator}.
 	 * @param numDice	number of dice to be rolled
 	 * @param sides		number of sides on the dice
 	 * @return			probabilities of all possible outcomes
@@ -224,10 +307,110 @@ public class DicePoolMap extends ProbMap<List<? extends DiceNumber>>
 	{
 		DiceRollIterable dri = new DiceRollIterable(numDice, sides);
 		
-		DicePoolMap dpm = new DicePoolMap();
-		dpm.putAll(dri);
+		final boolean packed = PackedDiceList.canPack(sides);
+		
+		Spliterator<Entry<List<? extends DiceNumber>, Double>> split = dri.spliterator((cursor) -> {
+			return new SimpleImmutableEntry<List<? extends DiceNumber>, Double>(
+					poolKey(cursor.faces(), packed), cursor.probability());
+		});
+		
+		if (split.hasCharacteristics(Spliterator.SIZED) && split.estimateSize() >= ProbMap.getParallelThreshold())
+		{
+			ProbMapBuilder<List<? extends DiceNumber>> builder = StreamSupport.stream(split, true).collect(
+					() -> new ProbMapBuilder<List<? extends DiceNumber>>(new DicePoolMap(), true),
+					(partBuilder, entry) -> partBuilder.add(entry.getKey(), entry.getValue()),
+					ProbMapBuilder::addAll);
+			
+			return (DicePoolMap) builder.build();
+		}
+		
+		DiceRollIterable.Cursor cursor = dri.cursor();
+		
+		ProbMapBuilder<List<? extends DiceNumber>> builder =
+				new ProbMapBuilder<List<? extends DiceNumber>>(new DicePoolMap(), true);
+		
+		while (cursor.advance())
+			builder.add(poolKey(cursor.faces(), packed), cursor.probability());
 
-		return dpm;
+		return (DicePoolMap) builder.build();
+	}
+	
+	/**
+	 * Generate the {@link DicePoolMap} which results from rolling a set of identical dice,
+	 * each rolling independently with the probabilities of a {@link DiceRollMap}.
+	 * <p>The combinations are enumerated as for the same number of unbiased dice with one side per roll,
+	 * and the probability of each combination is reweighted by the probabilities of its rolls.
+	 * @param numDice	number of dice to be rolled
+	 * @param die		<code>DiceRollMap</code> of a single die
+	 * @return			probabilities of all possible outcomes
+	 * @see DiceRollMap#reroll(java.util.function.Predicate, int)
+	 */
+	public static DicePoolMap diceRoll(int numDice, DiceRollMap die)
+	{
+		final double mass = die.getMass();
+		List<DiceNumber> rolls = new ArrayList<DiceNumber>(die.size());
+		List<Double> probs = new ArrayList<Double>(die.size());
+		
+		for (Entry<DiceNumber, Double> entry : die.rawEntrySet())
+			if (entry.getValue() > 0.0)
+			{
+				rolls.add(entry.getKey());
+				probs.add(entry.getValue());
+			}
+		
+		if (rolls.isEmpty() || mass <= 0.0)
+			return new DicePoolMap();
+		
+		final int sides = rolls.size();
+		
+		//Weight of each side relative to an unbiased die with the same number of sides
+		double[] weights = new double[sides];
+		
+		for (int i = 0; i < sides; i++)
+			weights[i] = probs.get(i) / mass * sides;
+		
+		DiceRollIterable.Cursor cursor = new DiceRollIterable(numDice, sides).cursor();
+		DiceNumber[] keyArr = new DiceNumber[Math.max(numDice, 0)];
+		
+		ProbMapBuilder<List<? extends DiceNumber>> builder =
+				new ProbMapBuilder<List<? extends DiceNumber>>(new DicePoolMap(), true);
+		
+		while (cursor.advance())
+		{
+			final int[] faces = cursor.faces();
+			final int[] counts = cursor.counts();
+			double prob = cursor.probability();
+			
+			for (int i = 0; i < sides; i++)
+				if (counts[i] > 0)
+					prob *= Math.pow(weights[i], counts[i]);
+			
+			for (int i = 0; i < faces.length; i++)
+				keyArr[i] = rolls.get(faces[i] - 1);
+			
+			builder.add(SortedDiceList.ofSorted(keyArr), prob);
+		}
+		
+		return (DicePoolMap) builder.build();
+	}
+	
+	/**
+	 * Make a sanitized key from faces in ascending order
+	 * @param faces		faces in ascending order, which are copied
+	 * @param packed	<code>true</code> if every face {@link PackedDiceList#canPack(int) can be packed}
+	 * @return			<code>PackedDiceList</code> if <code>packed</code>, otherwise a {@link SortedDiceList}
+	 */
+	static List<DiceNumber> poolKey(int[] faces, boolean packed)
+	{
+		if (packed)
+			return PackedDiceList.ofSorted(faces);
+		
+		DiceNumber[] keyArr = new DiceNumber[faces.length];
+		
+		for (int i = 0; i < faces.length; i++)
+			keyArr[i] = DiceNumber.valueOf(faces[i]);
+		
+		return new SortedArrayDiceList(keyArr);
 	}
 	
 	/**
@@ -240,16 +423,7 @@ public class DicePoolMap extends ProbMap<List<? extends DiceNumber>>
 	{
 		if (this.isEmpty())
 		{
-			DicePoolMap dpmNew = new DicePoolMap();
-			
-			for (Entry<? extends DiceNumber, Double> entry : drm.entrySet())
-			{
-				List<DiceNumber> listNew = new LinkedList<DiceNumber>();
-				listNew.add(entry.getKey());
-				dpmNew.put(listNew, entry.getValue());
-			}
-			
-			return dpmNew;
+			return new DicePoolMap(drm);
 		}
 		
 		return (DicePoolMap) combine(listAdd, drm, this);
@@ -2,12 +2,13 @@ package diceTools;
 
 import java.util.Arrays;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.function.Consumer;
-import java.util.AbstractMap.SimpleEntry;
+import java.util.Spliterator;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Map.Entry;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Generates iterators to iterate all possible combinations of dice rolls.
@@ -43,129 +44,514 @@ public class DiceRollIterable implements Iterable<Entry<List<DiceNumber.DiceInte
 	}
 	
 	/**
-	 * Iterates all possible combinations of dice rolls for a
-	 * {@link diceTools.DiceRollIterable DiceRollIterable instance}.
+	 * Get a {@link Cursor} over all possible combinations of dice rolls,
+	 * which steps through them without allocating
+	 * @return		<code>Cursor</code> positioned before the first combination
+	 */
+	public Cursor cursor()
+	{
+		return new Cursor(0, -1);
+	}
+	
+	/**
+	 * Get a {@link Spliterator} over all possible combinations of dice rolls,
+	 * which splits by ranges of {@link MultisetRanking rank} and reports exact sizes.
+	 * If there are too many combinations to rank, the <code>Spliterator</code> cannot split.
+	 * @return		<code>Spliterator</code> over the entries which {@link #iterator()} returns
+	 */
+	@Override
+	public Spliterator<Entry<List<DiceNumber.DiceInteger>, Double>> spliterator()
+	{
+		return spliterator(DiceRollIterable::toEntry);
+	}
+	
+	/**
+	 * Get a {@link Spliterator} over all possible combinations of dice rolls,
+	 * which splits by ranges of {@link MultisetRanking rank} and reports exact sizes.
+	 * Each combination is converted to an element by a function which is given a
+	 * {@link Cursor} positioned at that combination. The <code>Cursor</code>'s arrays are
+	 * reused, so the function must copy any part of them which it keeps.
+	 * If there are too many combinations to rank, the <code>Spliterator</code> cannot split.
+	 * @param <T>		type of the elements
+	 * @param mapper	rule for converting a combination into an element
+	 * @return			<code>Spliterator</code> over one element for each combination
+	 */
+	public <T> Spliterator<T> spliterator(Function<? super Cursor, ? extends T> mapper)
+	{
+		long size;
+		
+		try
+		{
+			//A Cursor visits no combinations of zero dice
+			size = (numDice <= 0) ? 0 : new MultisetRanking(numDice, Math.max(numSides, 0)).size();
+		}
+		catch (ArithmeticException e)
+		{
+			size = -1;
+		}
+		
+		return new DiceRollSpliterator<T>(new Cursor(0, size), mapper);
+	}
+	
+	/**
+	 * Box the combination at which a <code>Cursor</code> is positioned
+	 * @param cursor	<code>Cursor</code> positioned at a combination
+	 * @return			entry holding the faces in descending order and the probability
+	 */
+	private static Entry<List<DiceNumber.DiceInteger>, Double> toEntry(Cursor cursor)
+	{
+		final int[] faces = cursor.faces();
+		final int numDice = faces.length;
+		DiceNumber.DiceInteger[] keyArr = new DiceNumber.DiceInteger[numDice];
+		
+		for (int i = 0; i < numDice; i++)
+			keyArr[numDice - 1 - i] = DiceNumber.valueOf(faces[i]);
+		
+		List<DiceNumber.DiceInteger> keyList = new ImmutableList<DiceNumber.DiceInteger>(keyArr);
+		
+		return new SimpleImmutableEntry<List<DiceNumber.DiceInteger>, Double>(keyList, cursor.probability());
+	}
+	
+	/**
+	 * Steps through all possible combinations of dice rolls for a
+	 * {@link diceTools.DiceRollIterable DiceRollIterable instance}, exposing the
+	 * current combination as reused arrays and its probability as a primitive <code>double</code>.
+	 * <p>Each combination is represented by the number of dice showing each face,
+	 * and its probability is the multinomial coefficient of those counts divided by the
+	 * total number of permutations. When every factorial and the number of permutations
+	 * can be held exactly, the probability is calculated exactly. Otherwise it is calculated
+	 * in log space from a table of log-factorials, so nothing can overflow.
+	 * <p>Successive combinations differ in the counts of at most three faces, so the
+	 * faces and the probability are updated incrementally rather than recalculated.
+	 * No objects are allocated after the <code>Cursor</code> is constructed.
+	 * <p>A <code>Cursor</code> may be limited to a range of {@link MultisetRanking ranks},
+	 * in which case it starts by unranking its first combination.
 	 * 
 	 * @author kieran
 	 */
-	private class DiceRollIterator implements Iterator<Entry<List<DiceNumber.DiceInteger>, Double>>
+	public final class Cursor
 	{
 		/**
-		 * Last generated roll combination
+		 * Largest number of dice whose factorial fits in a <code>long</code>
+		 */
+		private static final int MAX_EXACT_DICE = 20;
+		
+		/**
+		 * Number of dice showing each face, where index <code>i</code> holds face <code>i + 1</code>
+		 */
+		private final int[] counts;
+		
+		/**
+		 * Face shown by each die, in ascending order
 		 */
-		private final Integer[] lastRoll;
+		private final int[] faces;
 		
 		/**
-		 * The maximum number of possible distinct orderings of any
-		 * given roll combination.
+		 * Whether the <code>Cursor</code> has moved to its first combination
 		 */
-		private final int maxOrderings;
+		private boolean started = false;
 		
 		/**
-		 * The total possible distinct roll permutations.
+		 * Rank of the first combination visited
 		 */
-		private final int possibleRolls;
+		private final long startRank;
 		
-		public DiceRollIterator()
+		/**
+		 * Rank after the last combination visited, or negative if the range is unlimited
+		 */
+		private long endRank;
+		
+		/**
+		 * Rank of the combination which the next call to {@link #advance()} moves to
+		 */
+		private long nextRank;
+		
+		/**
+		 * Factorial of each number of dice, from zero to <code>numDice</code>,
+		 * or <code>null</code> if probabilities are calculated in log space
+		 */
+		private final long[] factorials;
+		
+		/**
+		 * Natural logarithm of the factorial of each number of dice, from zero to <code>numDice</code>
+		 */
+		private final double[] logFactorials;
+		
+		/**
+		 * Total number of permutations of rolls, if probabilities are calculated exactly
+		 */
+		private final double permutations;
+		
+		/**
+		 * Natural logarithm of the probability of any single permutation of rolls
+		 */
+		private final double logPermutationProb;
+		
+		/**
+		 * Product of the factorials of the counts, if probabilities are calculated exactly
+		 */
+		private long divOrderings;
+		
+		/**
+		 * Sum of the log-factorials of the counts, if probabilities are calculated in log space
+		 */
+		private double logDivOrderings;
+		
+		/**
+		 * Rounding error lost from <code>logDivOrderings</code>, kept so that it does not drift
+		 */
+		private double logDivOrderingsError;
+		
+		/**
+		 * Probability of the current combination
+		 */
+		private double prob;
+		
+		/**
+		 * Constructs a <code>Cursor</code> over a range of ranks
+		 * @param startRank		rank of the first combination to visit
+		 * @param endRank		rank after the last combination to visit, or negative for no limit
+		 */
+		private Cursor(long startRank, long endRank)
 		{
-			lastRoll = new Integer[numDice];
+			this.startRank = startRank;
+			this.endRank = endRank;
+			this.nextRank = startRank;
+			
+			final int diceCount = Math.max(numDice, 0);
 			
-			if (numDice > 0)
+			counts = new int[Math.max(numSides, 0)];
+			faces = new int[diceCount];
+			logFactorials = new double[diceCount + 1];
+			
+			for (int i = 1; i <= diceCount; i++)
+				logFactorials[i] = logFactorials[i - 1] + Math.log(i);
+			
+			logPermutationProb = -numDice * Math.log(numSides);
+			permutations = Math.pow(numSides, numDice);
+			
+			//Powers of integers are exact while they are below 2^53
+			if (numDice <= MAX_EXACT_DICE && permutations < 0x1p53)
 			{
-				Arrays.fill(lastRoll, 1);
-				lastRoll[0] = 0;
+				factorials = new long[diceCount + 1];
+				factorials[0] = 1;
+				
+				for (int i = 1; i <= diceCount; i++)
+					factorials[i] = factorials[i - 1] * i;
 			}
-			
-			maxOrderings = factorial(numDice);
-			possibleRolls = (int) Math.pow(numSides, numDice);
+			else
+				factorials = null;
 		}
-
-		@Override
+		
+		/**
+		 * Check whether there is another combination to move to
+		 * @return		<code>true</code> if {@link #advance()} would succeed
+		 */
 		public boolean hasNext()
 		{
-			return (numDice > 0) && (lastRoll[numDice - 1] != numSides);
+			if (numDice <= 0 || numSides <= 0)
+				return false;
+			
+			if (endRank >= 0 && nextRank >= endRank)
+				return false;
+			
+			return !started || (counts[numSides - 1] != numDice);
 		}
-
-		@Override
-		public Entry<List<DiceNumber.DiceInteger>, Double> next()
+		
+		/**
+		 * Get the number of combinations left to visit
+		 * @return		number of combinations, or negative if it is not known
+		 */
+		long remaining()
+		{
+			return (endRank < 0) ? -1 : Math.max(endRank - nextRank, 0);
+		}
+		
+		/**
+		 * Split off the upper half of the combinations left to visit
+		 * @return		new <code>Cursor</code> over the upper half, or <code>null</code>
+		 * 				if the range is unlimited or too small to split
+		 */
+		Cursor split()
 		{
-			nextRoll(lastRoll);
+			final long left = remaining();
 			
-			List<Integer> intList = Arrays.asList(lastRoll);
-			List<DiceNumber.DiceInteger> keyList = new LinkedList<DiceNumber.DiceInteger>();
-
-			Consumer<Integer> adder = new Consumer<Integer>() {
-
-				@Override
-				public void accept(Integer x)
-				{
-					keyList.add(new DiceNumber.DiceInteger(x));
-				}
-				
-			};
+			if (left < 2)
+				return null;
 			
-			intList.forEach(adder);
+			final long mid = nextRank + left / 2;
 			
-			double prob = getProb(lastRoll);
-
-			return new SimpleEntry<List<DiceNumber.DiceInteger>, Double>(keyList, prob);
+			Cursor upper = new Cursor(mid, endRank);
+			endRank = mid;
+			return upper;
 		}
 		
 		/**
-		 * Generate the next roll combination
-		 * @param roll		previous roll combination - must be in descending order
+		 * Move to the next combination.
+		 * The first is all dice showing face one. Each subsequent combination is found
+		 * by taking the lowest face shown by any dice, moving one of those dice up a face
+		 * and moving the rest down to face one, until all dice show the highest face.
+		 * @return		<code>true</code> if the <code>Cursor</code> moved,
+		 * 				or <code>false</code> if every combination has been visited
 		 */
-		private void nextRoll(Integer roll[])
+		public boolean advance()
 		{
 			if (!hasNext())
-				throw new NoSuchElementException("No next roll to go to");
+				return false;
+			
+			if (!started)
+			{
+				started = true;
+				nextRank++;
+				
+				if (startRank == 0)
+					counts[0] = numDice;
+				else
+					new MultisetRanking(numDice, numSides).unrank(startRank, counts);
+				
+				loadCounts();
+				return true;
+			}
+			
+			nextRank++;
+			
+			int low = 0;
+			
+			while (counts[low] == 0)
+				low++;
 			
-			int incPos = 0;
+			final int moved = counts[low];
 			
-			while (roll[incPos] == numSides)
-				incPos++;
+			//Only the counts of face one, the lowest face and the face above it change
+			if (low > 0)
+				changeCount(low, -moved);
 			
-			roll[incPos]++;
+			changeCount(0, moved - 1 - counts[0]);
+			changeCount(low + 1, 1);
 			
-			if (incPos > 0)
-				for (int i = incPos; i >= 0; i--)
-					roll[i] = roll[incPos];
+			//The dice which showed the lowest face are the first in ascending order
+			Arrays.fill(faces, 0, moved - 1, 1);
+			faces[moved - 1] = low + 2;
+			
+			updateProb();
+			return true;
 		}
 		
 		/**
-		 * Calculate the probability of getting a given roll combination
-		 * on rolling <code>numDice</code> identical unbiased dice with
-		 * <code>numSides</code> sides.
-		 * @param roll		roll combination - must be in descending order
-		 * @return			the probability of rolling the given roll combination
+		 * Calculate the faces and the probability from the counts alone
 		 */
-		private double getProb(Integer[] roll)
+		private void loadCounts()
 		{
-			int divOrderings = 1;
-			int count = 0;
-			int lastRoll = 0;
+			int pos = 0;
+			divOrderings = 1;
+			logDivOrderings = 0.0;
+			logDivOrderingsError = 0.0;
 			
-			for (Integer r : roll)
+			for (int i = 0; i < numSides; i++)
 			{
-				count = (r == lastRoll) ? (count + 1) : 1;
-				lastRoll = r;
-				divOrderings *= count;
+				Arrays.fill(faces, pos, pos + counts[i], i + 1);
+				pos += counts[i];
+				
+				if (factorials != null)
+					divOrderings *= factorials[counts[i]];
+				else
+					addLogDivOrderings(logFactorials[counts[i]]);
 			}
 			
-			return ((double) maxOrderings) / (divOrderings * possibleRolls);
+			updateProb();
 		}
 		
 		/**
-		 * Calculate the mathematical factorial of an <code>int</code>
-		 * @param in	x
-		 * @return		x!
+		 * Change the count of a face, updating the product of the factorials of the counts
+		 * @param index		index of the face in <code>counts</code>
+		 * @param delta		change in the number of dice showing the face
 		 */
-		private int factorial(int in)
+		private void changeCount(int index, int delta)
 		{
-			int out = in;
-			for (int i = in - 1; i > 1; i--)
-				out *= i;
-			return out;
+			if (delta == 0)
+				return;
+			
+			final int oldCount = counts[index];
+			final int newCount = oldCount + delta;
+			counts[index] = newCount;
+			
+			if (factorials != null)
+			{
+				//Each factorial divides the product exactly
+				divOrderings = divOrderings / factorials[oldCount] * factorials[newCount];
+				return;
+			}
+			
+			//Added separately, so the compensated sum sees each table entry exactly
+			addLogDivOrderings(logFactorials[newCount]);
+			addLogDivOrderings(-logFactorials[oldCount]);
+		}
+		
+		/**
+		 * Add to the running sum of log-factorials with compensated (Neumaier) summation
+		 * @param x		amount to add
+		 */
+		private void addLogDivOrderings(double x)
+		{
+			final double sum = logDivOrderings + x;
+			
+			if (Math.abs(logDivOrderings) >= Math.abs(x))
+				logDivOrderingsError += (logDivOrderings - sum) + x;
+			else
+				logDivOrderingsError += (x - sum) + logDivOrderings;
+			
+			logDivOrderings = sum;
+		}
+		
+		/**
+		 * Recalculate the probability of the current combination from the running product
+		 */
+		private void updateProb()
+		{
+			if (factorials != null)
+				prob = (factorials[numDice] / divOrderings) / permutations;
+			else
+				prob = Math.exp(logFactorials[numDice] - (logDivOrderings + logDivOrderingsError) + logPermutationProb);
+		}
+		
+		/**
+		 * Get the face shown by each die in the current combination.
+		 * The array is reused by the <code>Cursor</code>, and must not be modified.
+		 * @return		faces in ascending order
+		 */
+		public int[] faces()
+		{
+			return faces;
+		}
+		
+		/**
+		 * Get the number of dice showing each face in the current combination.
+		 * The array is reused by the <code>Cursor</code>, and must not be modified.
+		 * @return		counts, where index <code>i</code> holds the count of face <code>i + 1</code>
+		 */
+		public int[] counts()
+		{
+			return counts;
+		}
+		
+		/**
+		 * Get the probability of the current combination
+		 * @return		probability of rolling the current combination
+		 */
+		public double probability()
+		{
+			return prob;
+		}
+	}
+	
+	/**
+	 * Iterates all possible combinations of dice rolls for a
+	 * {@link diceTools.DiceRollIterable DiceRollIterable instance}
+	 * by boxing each combination visited by a {@link Cursor}.
+	 * 
+	 * @author kieran
+	 */
+	private class DiceRollIterator implements Iterator<Entry<List<DiceNumber.DiceInteger>, Double>>
+	{
+		/**
+		 * <code>Cursor</code> which generates the combinations
+		 */
+		private final Cursor cursor = new Cursor(0, -1);
+		
+		@Override
+		public boolean hasNext()
+		{
+			return cursor.hasNext();
+		}
+		
+		@Override
+		public Entry<List<DiceNumber.DiceInteger>, Double> next()
+		{
+			if (!cursor.advance())
+				throw new NoSuchElementException("No next roll to go to");
+			
+			return toEntry(cursor);
+		}
+	}
+	
+	/**
+	 * {@link Spliterator} over the combinations of dice rolls for a
+	 * {@link diceTools.DiceRollIterable DiceRollIterable instance}, which splits
+	 * its range of ranks in half and converts each combination visited by a
+	 * {@link Cursor} into an element.
+	 * 
+	 * @param <T>	type of the elements
+	 * 
+	 * @author kieran
+	 */
+	private static final class DiceRollSpliterator<T> implements Spliterator<T>
+	{
+		/**
+		 * <code>Cursor</code> over the range of ranks covered by this <code>Spliterator</code>
+		 */
+		private final Cursor cursor;
+		
+		/**
+		 * Rule for converting a combination into an element
+		 */
+		private final Function<? super Cursor, ? extends T> mapper;
+		
+		/**
+		 * Constructs a <code>DiceRollSpliterator</code>
+		 * @param cursor	<code>Cursor</code> over the range of ranks to cover
+		 * @param mapper	rule for converting a combination into an element
+		 */
+		private DiceRollSpliterator(Cursor cursor, Function<? super Cursor, ? extends T> mapper)
+		{
+			this.cursor = cursor;
+			this.mapper = mapper;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action)
+		{
+			if (!cursor.advance())
+				return false;
+			
+			action.accept(mapper.apply(cursor));
+			return true;
+		}
+		
+		@Override
+		public void forEachRemaining(Consumer<? super T> action)
+		{
+			while (cursor.advance())
+				action.accept(mapper.apply(cursor));
+		}
+		
+		@Override
+		public Spliterator<T> trySplit()
+		{
+			Cursor upper = cursor.split();
+			
+			if (upper == null)
+				return null;
+			
+			return new DiceRollSpliterator<T>(upper, mapper);
+		}
+		
+		@Override
+		public long estimateSize()
+		{
+			final long remaining = cursor.remaining();
+			
+			return (remaining < 0) ? Long.MAX_VALUE : remaining;
+		}
+		
+		@Override
+		public int characteristics()
+		{
+			final int always = Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+			
+			if (cursor.remaining() < 0)
+				return always;
+			
+			return always | Spliterator.SIZED | Spliterator.SUBSIZED;
 		}
 	}
 }
\ No newline at end of file
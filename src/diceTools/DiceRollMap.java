@@ -1,9 +1,10 @@
 package diceTools;
 
-import java.util.List;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.function.BiFunction;
-import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Implementation of {@link ProbMap} with {@link DiceNumber} values used for event keys.
@@ -22,9 +23,9 @@ public class DiceRollMap extends ProbMap<DiceNumber>
 	private static final BiFunction<DiceNumber, DiceNumber, DiceNumber> sumCombiner;
 	
 	/**
-	 * Sums each <code>Integer</code> in a <code>List&ltInteger&gt</code> key
+	 * Subtracts one <code>Integer</code> from another
 	 */
-	private static final Function<List<? extends DiceNumber>, DiceNumber> sumFlattener;
+	private static final BiFunction<DiceNumber, DiceNumber, DiceNumber> differenceCombiner;
 	
 	static
 	{
@@ -40,38 +41,27 @@ public class DiceRollMap extends ProbMap<DiceNumber>
 			}
 		};
 		
-		sumFlattener = new Function<List<? extends DiceNumber>, DiceNumber>()
+		differenceCombiner = new BiFunction<DiceNumber, DiceNumber, DiceNumber>()
 		{
-			
 			@Override
-			public DiceNumber apply(List<? extends DiceNumber> key)
+			public DiceNumber apply(DiceNumber a, DiceNumber b)
 			{
-				boolean doubleFound = false;
-				int intSum = 0;
-				double doubleSum = 0;
-				
-				for (DiceNumber myNum : key)
-				{
-					if (!doubleFound && !myNum.isInt())
-					{
-						doubleSum = intSum;
-						doubleFound = true;
-					}
-					
-					if (doubleFound)
-						doubleSum += myNum.doubleValue();
-					else
-						intSum += myNum.intValue();
-				}
-				
-				if (doubleFound)
-					return new DiceNumber.DiceDouble(doubleSum);
+				if (a.isInt() && b.isInt())
+					return new DiceNumber.DiceInteger(a.intValue() - b.intValue());
 				else
-					return new DiceNumber.DiceInteger(intSum);
+					return new DiceNumber.DiceDouble(a.doubleValue() - b.doubleValue());
 			}
 		};
 	}
 	
+	/**
+	 * Dense form of the <code>DiceRollMap</code>, or <code>null</code> if it has not been found.
+	 * It is kept from the arithmetic which produced the <code>DiceRollMap</code>, or found when first needed,
+	 * so that a chain of sums converts each <code>DiceRollMap</code> to an array at most once.
+	 * It is never modified, and is discarded whenever the <code>DiceRollMap</code> is modified.
+	 */
+	private transient DenseRollMap dense = null;
+	
 	public DiceRollMap()
 	{
 		super();
@@ -80,6 +70,7 @@ public class DiceRollMap extends ProbMap<DiceNumber>
 	public DiceRollMap(DiceRollMap drm)
 	{
 		super(drm);
+		dense = drm.dense;
 	}
 	
 	@Override
@@ -108,21 +99,104 @@ public class DiceRollMap extends ProbMap<DiceNumber>
 	 */
 	public static DiceRollMap diceRoll(int numDice, int sides)
 	{
-		DiceRollMap drm = new DiceRollMap();
+		if (numDice <= 0 || sides <= 0)
+			return new DiceRollMap();
+		
+		return fromDense(DenseRollMap.diceRoll(numDice, sides));
+	}
+	
+	/**
+	 * Generate the {@link DiceRollMap} of the sum of the highest dice in a roll of identical unbiased dice,
+	 * in polynomial time rather than by enumerating every combination of the roll
+	 * @param numDice	number of dice to be rolled
+	 * @param sides		number of sides on the dice
+	 * @param nKeep		number of dice to keep
+	 * @return			probabilities of all possible sums of the kept dice
+	 * @see DenseRollMap#keepHighest(int, int, int)
+	 */
+	public static DiceRollMap keepHighest(int numDice, int sides, int nKeep)
+	{
+		if (numDice <= 0 || sides <= 0)
+			return new DiceRollMap();
+		
+		return fromDense(DenseRollMap.keepHighest(numDice, sides, nKeep));
+	}
+	
+	/**
+	 * Generate the {@link DiceRollMap} of the sum of the lowest dice in a roll of identical unbiased dice,
+	 * in polynomial time rather than by enumerating every combination of the roll
+	 * @param numDice	number of dice to be rolled
+	 * @param sides		number of sides on the dice
+	 * @param nKeep		number of dice to keep
+	 * @return			probabilities of all possible sums of the kept dice
+	 * @see DenseRollMap#keepLowest(int, int, int)
+	 */
+	public static DiceRollMap keepLowest(int numDice, int sides, int nKeep)
+	{
+		if (numDice <= 0 || sides <= 0)
+			return new DiceRollMap();
+		
+		return fromDense(DenseRollMap.keepLowest(numDice, sides, nKeep));
+	}
+	
+	/**
+	 * Generate the {@link DiceRollMap} of the number of successes scored by a set of identical dice,
+	 * directly from the probabilities with which a single die scores successes
+	 * @param numDice	number of dice to be rolled
+	 * @param tierProbs	probability that a die scores exactly <code>k + 1</code> successes, at index <code>k</code>
+	 * @return			probabilities of all possible numbers of successes
+	 * @see DenseRollMap#countSuccesses(int, double...)
+	 */
+	public static DiceRollMap countSuccesses(int numDice, double... tierProbs)
+	{
+		if (numDice <= 0)
+			return new DiceRollMap();
 		
-		DiceRollIterable dri = new DiceRollIterable(numDice, sides);
-		for (Entry<List<DiceNumber.DiceInteger>, Double> entry : dri)
+		return fromDense(DenseRollMap.countSuccesses(numDice, tierProbs));
+	}
+	
+	/**
+	 * Generate the {@link DiceRollMap} of the number of successes scored by a set of identical dice,
+	 * where each die scores one success for every threshold which its roll is at least.
+	 * Only the given <code>DiceRollMap</code> of a single die is examined, so the rolls of the
+	 * set of dice are never enumerated.
+	 * @param numDice		number of dice to be rolled
+	 * @param die			<code>DiceRollMap</code> of a single die
+	 * @param thresholds	rolls at or above which a die scores a success
+	 * @return				probabilities of all possible numbers of successes
+	 * @see #countSuccesses(int, double...)
+	 */
+	public static DiceRollMap countAtLeast(int numDice, DiceRollMap die, DiceNumber... thresholds)
+	{
+		if (numDice <= 0 || die.isEmpty())
+			return new DiceRollMap();
+		
+		DiceNumber[] sorted = thresholds.clone();
+		Arrays.sort(sorted);
+		
+		final double mass = die.getMass();
+		double[] tierProbs = new double[sorted.length];
+		
+		for (Entry<DiceNumber, Double> entry : die.rawEntrySet())
 		{
-			DiceNumber key = sumFlattener.apply(entry.getKey());
-			drm.merge(key, entry.getValue());
+			int successes = 0;
+			
+			while (successes < sorted.length && entry.getKey().compareTo(sorted[successes]) >= 0)
+				successes++;
+			
+			if (successes > 0)
+				tierProbs[successes - 1] += entry.getValue() / mass;
 		}
 		
-		return drm;
+		return countSuccesses(numDice, tierProbs);
 	}
 	
 	/**
 	 * Generate all the possible results of summing the roll outcomes
 	 * of the calling {@link DiceRollMap} with the given <code>DiceRollMap</code>.
+	 * When both maps hold dense integer keys the sum is found by convolution,
+	 * using {@link Convolution} to switch to a fast Fourier transform for large maps.
+	 * The array of the sum is kept with the result, so it need not be rebuilt if the result is combined again.
 	 * @param drm	<code>DiceRollMap</code> to combine
 	 * @return		resulting <code>DiceRollMap</code>
 	 */
@@ -135,6 +209,437 @@ public class DiceRollMap extends ProbMap<DiceNumber>
 			return drmNew;
 		}
 		
+		DenseRollMap denseThis = this.dense();
+		DenseRollMap denseThat = (denseThis == null) ? null : drm.dense();
+		
+		if (denseThat != null)
+			return fromDense(denseThis.combine(denseThat));
+		
 		return (DiceRollMap) combine(sumCombiner, drm);
 	}
+	
+	/**
+	 * Generate all the possible results of subtracting the roll outcomes
+	 * of the given {@link DiceRollMap} from those of the calling <code>DiceRollMap</code>.
+	 * Dense integer keys are convolved as for {@link #combine(DiceRollMap) combine}.
+	 * @param drm	<code>DiceRollMap</code> to subtract
+	 * @return		resulting <code>DiceRollMap</code>
+	 */
+	public DiceRollMap difference(DiceRollMap drm)
+	{
+		DenseRollMap denseThis = this.dense();
+		DenseRollMap denseThat = (denseThis == null) ? null : drm.dense();
+		
+		if (denseThat != null)
+			return fromDense(denseThis.combine(denseThat.negate()));
+		
+		return (DiceRollMap) combine(differenceCombiner, drm);
+	}
+	
+	/**
+	 * Generate the {@link DiceRollMap} of the sum of a number of independent rolls of the calling <code>DiceRollMap</code>.
+	 * The sum is found by repeatedly {@link #combine(DiceRollMap) combining} the sums of powers of two rolls,
+	 * so only O(<code>log n</code>) combinations are made. Dense integer keys are summed
+	 * by {@link DenseRollMap#sumOf(int)}, so only the final sum is converted back to a <code>DiceRollMap</code>.
+	 * @param n		number of rolls
+	 * @return		<code>DiceRollMap</code> of the sum,
+	 * 				or an empty <code>DiceRollMap</code> if <code>n</code> is not positive
+	 */
+	public DiceRollMap sumOf(int n)
+	{
+		DenseRollMap denseThis = this.dense();
+		
+		if (denseThis != null)
+			return fromDense(denseThis.sumOf(n));
+		
+		DiceRollMap sum = new DiceRollMap();
+		DiceRollMap square = this;
+		
+		while (n > 0)
+		{
+			if ((n & 1) != 0)
+				sum = sum.combine(square);
+			
+			n >>>= 1;
+			
+			if (n > 0)
+				square = square.combine(square);
+		}
+		
+		return sum;
+	}
+	
+	/**
+	 * Generate the {@link DiceRollMap} of a die which is rerolled up to a number of times
+	 * while its roll is one which should be rerolled, keeping the final roll.
+	 * <p>The die is only examined once. After up to <code>times</code> rerolls, a roll which is kept has its
+	 * probability multiplied by <code>1 + r + ... + r<sup>times</sup></code> and a roll which is rerolled by
+	 * <code>r<sup>times</sup></code>, where <code>r</code> is the probability of rolling a roll which is rerolled.
+	 * A set of rerolled dice is generated by rolling the returned <code>DiceRollMap</code> for each die, such as
+	 * by {@link #sumOf(int)} or {@link DicePoolMap#diceRoll(int, DiceRollMap)}.
+	 * @param rerolled	<code>Predicate</code> which is true for rolls which are rerolled
+	 * @param times		maximum number of rerolls
+	 * @return			<code>DiceRollMap</code> of the final roll, with the same mass as the calling <code>DiceRollMap</code>
+	 * @see #condition(Predicate)
+	 */
+	public DiceRollMap reroll(Predicate<? super DiceNumber> rerolled, int times)
+	{
+		DiceRollMap roll = new DiceRollMap();
+		final double mass = getMass();
+		
+		if (mass <= 0.0)
+			return roll;
+		
+		double rerolledMass = 0.0;
+		
+		for (Entry<DiceNumber, Double> entry : rawEntrySet())
+			if (rerolled.test(entry.getKey()))
+				rerolledMass += entry.getValue();
+		
+		final double r = Math.min(1.0, rerolledMass / mass);
+		final int n = Math.max(times, 0);
+		final double power = Math.pow(r, n);
+		final double series = (r < 1.0) ? (1.0 - power * r) / (1.0 - r) : n + 1;
+		
+		for (Entry<DiceNumber, Double> entry : rawEntrySet())
+		{
+			final double prob = entry.getValue() * (rerolled.test(entry.getKey()) ? power : series);
+			
+			if (prob > 0.0)
+				roll.put(entry.getKey(), prob);
+		}
+		
+		return roll;
+	}
+	
+	/**
+	 * Generate the {@link DiceRollMap} of the calling <code>DiceRollMap</code> conditioned on its roll
+	 * being one which is kept. This is the roll of a die which is rerolled until it is kept.
+	 * @param kept	<code>Predicate</code> which is true for rolls which are kept
+	 * @return		normalised <code>DiceRollMap</code> of the kept rolls,
+	 * 				or an empty <code>DiceRollMap</code> if no roll can be kept
+	 * @see #reroll(Predicate, int)
+	 */
+	public DiceRollMap condition(Predicate<? super DiceNumber> kept)
+	{
+		DiceRollMap roll = new DiceRollMap();
+		
+		for (Entry<DiceNumber, Double> entry : rawEntrySet())
+			if (entry.getValue() > 0.0 && kept.test(entry.getKey()))
+				roll.put(entry.getKey(), entry.getValue());
+		
+		if (!roll.isEmpty())
+			roll.normalise();
+		
+		return roll;
+	}
+	
+	/**
+	 * Generate the Bernoulli {@link DiceRollMap} of whether a roll of the calling <code>DiceRollMap</code>
+	 * is greater than an independent roll of the given <code>DiceRollMap</code>
+	 * @param drm	<code>DiceRollMap</code> to compare against
+	 * @return		<code>DiceRollMap</code> with key <code>1</code> for true and <code>0</code> for false
+	 * @see #compareRolls(DiceRollMap)
+	 */
+	public DiceRollMap greaterThan(DiceRollMap drm)
+	{
+		final double[] outcomes = compareRolls(drm);
+		return bernoulli(outcomes[2], outcomes);
+	}
+	
+	/**
+	 * Generate the Bernoulli {@link DiceRollMap} of whether a roll of the calling <code>DiceRollMap</code>
+	 * is less than an independent roll of the given <code>DiceRollMap</code>
+	 * @param drm	<code>DiceRollMap</code> to compare against
+	 * @return		<code>DiceRollMap</code> with key <code>1</code> for true and <code>0</code> for false
+	 * @see #compareRolls(DiceRollMap)
+	 */
+	public DiceRollMap lessThan(DiceRollMap drm)
+	{
+		final double[] outcomes = compareRolls(drm);
+		return bernoulli(outcomes[0], outcomes);
+	}
+	
+	/**
+	 * Generate the Bernoulli {@link DiceRollMap} of whether a roll of the calling <code>DiceRollMap</code>
+	 * is equal to an independent roll of the given <code>DiceRollMap</code>
+	 * @param drm	<code>DiceRollMap</code> to compare against
+	 * @return		<code>DiceRollMap</code> with key <code>1</code> for true and <code>0</code> for false
+	 * @see #compareRolls(DiceRollMap)
+	 */
+	public DiceRollMap equalTo(DiceRollMap drm)
+	{
+		final double[] outcomes = compareRolls(drm);
+		return bernoulli(outcomes[1], outcomes);
+	}
+	
+	/**
+	 * Find the probabilities that a roll of the calling {@link DiceRollMap} is less than, equal to,
+	 * or greater than an independent roll of the given <code>DiceRollMap</code>.
+	 * <p>Both maps are walked in ascending order of their keys in a single merge pass,
+	 * accumulating the probability of the given <code>DiceRollMap</code> below each key of the calling one,
+	 * so this costs O(<code>n + m</code>) time rather than combining every pair of keys.
+	 * @param drm	<code>DiceRollMap</code> to compare against
+	 * @return		probabilities that the roll is less than, equal to and greater than the roll of
+	 * 				<code>drm</code>, at indices 0, 1 and 2, scaled by the masses of both maps
+	 */
+	public double[] compareRolls(DiceRollMap drm)
+	{
+		final double massThat = drm.getMass();
+		double less = 0.0;
+		double equal = 0.0;
+		double greater = 0.0;
+		double below = 0.0;
+		
+		Iterator<Entry<DiceNumber, Double>> iterThat = drm.rawEntrySet().iterator();
+		Entry<DiceNumber, Double> entryThat = iterThat.hasNext() ? iterThat.next() : null;
+		
+		for (Entry<DiceNumber, Double> entryThis : rawEntrySet())
+		{
+			final DiceNumber key = entryThis.getKey();
+			
+			while (entryThat != null && entryThat.getKey().compareTo(key) < 0)
+			{
+				below += entryThat.getValue();
+				entryThat = iterThat.hasNext() ? iterThat.next() : null;
+			}
+			
+			final double at = (entryThat != null && entryThat.getKey().compareTo(key) == 0) ? entryThat.getValue() : 0.0;
+			final double prob = entryThis.getValue();
+			
+			greater += prob * below;
+			equal += prob * at;
+			less += prob * Math.max(0.0, massThat - below - at);
+		}
+		
+		return new double[] {less, equal, greater};
+	}
+	
+	/**
+	 * Generate the {@link DiceRollMap} of the higher of a roll of the calling <code>DiceRollMap</code>
+	 * and an independent roll of the given <code>DiceRollMap</code>
+	 * @param drm	<code>DiceRollMap</code> to roll against
+	 * @return		<code>DiceRollMap</code> of the higher roll
+	 * @see #extreme(DiceRollMap, boolean)
+	 */
+	public DiceRollMap max(DiceRollMap drm)
+	{
+		return extreme(drm, true);
+	}
+	
+	/**
+	 * Generate the {@link DiceRollMap} of the lower of a roll of the calling <code>DiceRollMap</code>
+	 * and an independent roll of the given <code>DiceRollMap</code>
+	 * @param drm	<code>DiceRollMap</code> to roll against
+	 * @return		<code>DiceRollMap</code> of the lower roll
+	 * @see #extreme(DiceRollMap, boolean)
+	 */
+	public DiceRollMap min(DiceRollMap drm)
+	{
+		return extreme(drm, false);
+	}
+	
+	/**
+	 * Generate the {@link DiceRollMap} of the highest of a number of independent rolls of the calling <code>DiceRollMap</code>
+	 * @param n		number of rolls
+	 * @return		normalised <code>DiceRollMap</code> of the highest roll,
+	 * 				or an empty <code>DiceRollMap</code> if <code>n</code> is not positive
+	 * @see #extremeOf(int, boolean)
+	 */
+	public DiceRollMap maxOf(int n)
+	{
+		return extremeOf(n, true);
+	}
+	
+	/**
+	 * Generate the {@link DiceRollMap} of the lowest of a number of independent rolls of the calling <code>DiceRollMap</code>
+	 * @param n		number of rolls
+	 * @return		normalised <code>DiceRollMap</code> of the lowest roll,
+	 * 				or an empty <code>DiceRollMap</code> if <code>n</code> is not positive
+	 * @see #extremeOf(int, boolean)
+	 */
+	public DiceRollMap minOf(int n)
+	{
+		return extremeOf(n, false);
+	}
+	
+	/**
+	 * Generate the {@link DiceRollMap} of the higher or lower of two independent rolls.
+	 * <p>The keys of both maps are walked together in a single merge pass, starting from the key furthest
+	 * from the result. The result takes a key when one roll takes it and the other takes it or a key
+	 * already passed, so the probability of each key is found from the masses already passed, without
+	 * subtracting cumulative probabilities. This costs O(<code>n + m</code>) time rather than combining
+	 * every pair of keys.
+	 * @param drm		<code>DiceRollMap</code> to roll against
+	 * @param highest	<code>true</code> for the higher roll, <code>false</code> for the lower roll
+	 * @return			<code>DiceRollMap</code> of the chosen roll, whose mass is the product of the masses of both maps
+	 */
+	private DiceRollMap extreme(DiceRollMap drm, boolean highest)
+	{
+		DiceRollMap roll = new DiceRollMap();
+		
+		Iterator<Entry<DiceNumber, Double>> iterThis = (highest ? rawEntrySet() : rawDescendingEntrySet()).iterator();
+		Iterator<Entry<DiceNumber, Double>> iterThat = (highest ? drm.rawEntrySet() : drm.rawDescendingEntrySet()).iterator();
+		Entry<DiceNumber, Double> entryThis = iterThis.hasNext() ? iterThis.next() : null;
+		Entry<DiceNumber, Double> entryThat = iterThat.hasNext() ? iterThat.next() : null;
+		double passedThis = 0.0;
+		double passedThat = 0.0;
+		
+		while (entryThis != null || entryThat != null)
+		{
+			int c;
+			
+			if (entryThis == null)
+				c = 1;
+			else if (entryThat == null)
+				c = -1;
+			else
+				c = highest ? entryThis.getKey().compareTo(entryThat.getKey()) : entryThat.getKey().compareTo(entryThis.getKey());
+			
+			final DiceNumber key = (c <= 0) ? entryThis.getKey() : entryThat.getKey();
+			final double probThis = (c <= 0) ? entryThis.getValue() : 0.0;
+			final double probThat = (c >= 0) ? entryThat.getValue() : 0.0;
+			final double prob = probThis * (passedThat + probThat) + passedThis * probThat;
+			
+			if (prob > 0.0)
+				roll.put(key, prob);
+			
+			passedThis += probThis;
+			passedThat += probThat;
+			
+			if (c <= 0)
+				entryThis = iterThis.hasNext() ? iterThis.next() : null;
+			
+			if (c >= 0)
+				entryThat = iterThat.hasNext() ? iterThat.next() : null;
+		}
+		
+		return roll;
+	}
+	
+	/**
+	 * Generate the {@link DiceRollMap} of the highest or lowest of a number of independent rolls.
+	 * <p>The cumulative probability of the chosen roll is the cumulative probability of a single roll to the power
+	 * of <code>n</code>, so the keys are walked once, starting from the key furthest from the result.
+	 * The probability of each key is the difference between two such powers, which is found as
+	 * <code>F<sup>n</sup> * (1 - (1 - p / F)<sup>n</sup>)</code> using {@link Math#expm1(double)} and
+	 * {@link Math#log1p(double)}, so that no precision is lost to cancellation in the tails.
+	 * This costs O(<code>size</code>) time for any number of rolls.
+	 * @param n			number of rolls
+	 * @param highest	<code>true</code> for the highest roll, <code>false</code> for the lowest roll
+	 * @return			normalised <code>DiceRollMap</code> of the chosen roll
+	 */
+	private DiceRollMap extremeOf(int n, boolean highest)
+	{
+		DiceRollMap roll = new DiceRollMap();
+		final double mass = getMass();
+		
+		if (n <= 0 || mass <= 0.0)
+			return roll;
+		
+		double passed = 0.0;
+		
+		for (Entry<DiceNumber, Double> entry : (highest ? rawEntrySet() : rawDescendingEntrySet()))
+		{
+			final double p = entry.getValue();
+			
+			if (p <= 0.0)
+				continue;
+			
+			passed += p;
+			
+			final double cumulative = Math.min(1.0, passed / mass);
+			final double prob = Math.pow(cumulative, n) * -Math.expm1(n * Math.log1p(-p / passed));
+			
+			if (prob > 0.0)
+				roll.put(entry.getKey(), prob);
+		}
+		
+		return roll;
+	}
+	
+	/**
+	 * Generate a Bernoulli {@link DiceRollMap} from the outcomes of a comparison
+	 * @param hit		probability of the outcome which is true
+	 * @param outcomes	probabilities of every outcome, whose sum normalises <code>hit</code>
+	 * @return			<code>DiceRollMap</code> with key <code>1</code> for true and <code>0</code> for false,
+	 * 					or an empty <code>DiceRollMap</code> if the outcomes have no probability
+	 */
+	private static DiceRollMap bernoulli(double hit, double[] outcomes)
+	{
+		DiceRollMap roll = new DiceRollMap();
+		final double total = outcomes[0] + outcomes[1] + outcomes[2];
+		
+		if (total <= 0.0)
+			return roll;
+		
+		final double p = Math.min(1.0, hit / total);
+		
+		if (p < 1.0)
+			roll.put(DiceNumber.valueOf(0), 1.0 - p);
+		
+		if (p > 0.0)
+			roll.put(DiceNumber.valueOf(1), p);
+		
+		return roll;
+	}
+	
+	/**
+	 * Summarise the {@link DiceRollMap} in a single pass over its entries
+	 * @return		mass, count, moments, extremes, mode and median of the rolls
+	 */
+	public ProbStats<DiceNumber> getStats()
+	{
+		return ProbStats.of(this);
+	}
+	
+	/**
+	 * Convert the {@link DiceRollMap} to a {@link DenseRollMap}
+	 * if its keys are all integers lying in a dense range.
+	 * @return		the equivalent <code>DenseRollMap</code>, or <code>null</code>
+	 * 				if the keys are not suitable for dense storage
+	 */
+	public DenseRollMap toDense()
+	{
+		return DenseRollMap.fromRollMap(this);
+	}
+	
+	/**
+	 * Get the dense form of the {@link DiceRollMap}, finding it if it has not already been found
+	 * @return		the equivalent <code>DenseRollMap</code>, which must not be modified, or <code>null</code>
+	 * 				if the keys are not suitable for dense storage
+	 */
+	private DenseRollMap dense()
+	{
+		if (dense == null)
+			dense = DenseRollMap.fromRollMap(this);
+		
+		return dense;
+	}
+	
+	/**
+	 * Create a {@link DiceRollMap} from a <code>DenseRollMap</code>, which is kept as its dense form
+	 * @param owned		<code>DenseRollMap</code> which is not held or modified by anything else
+	 * @return			<code>DiceRollMap</code> containing each key of <code>owned</code> with a non-zero probability
+	 */
+	static DiceRollMap fromDense(DenseRollMap owned)
+	{
+		DiceRollMap drm = owned.toRollMap();
+		drm.dense = owned;
+		return drm;
+	}
+	
+	@Override
+	protected void modified()
+	{
+		super.modified();
+		dense = null;
+	}
+	
+	@Override
+	void changed(double massDelta)
+	{
+		super.changed(massDelta);
+		dense = null;
+	}
 }
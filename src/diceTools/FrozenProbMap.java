@@ -0,0 +1,776 @@
+package diceTools;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * Immutable snapshot of a {@link ProbMap}, backed by sorted arrays of keys and probabilities.
+ * <p>Navigation uses binary search over the key array, and iteration walks the arrays in order.
+ * Keys passed to lookup methods are validated and sanitized in the same way as the
+ * <code>ProbMap</code> which was frozen, so the two answer lookups identically.
+ * All methods which would modify the map throw <code>UnsupportedOperationException</code>.
+ * <p>A <code>FrozenProbMap</code> never changes after construction, so it may be shared
+ * between threads without copying or synchronization.
+ * Sub-maps are views over a range of the same arrays, and clamp keys outside their range
+ * to the range, rather than throwing as <code>TreeMap</code> sub-maps do.
+ * <p>Cumulative probabilities are indexed the first time they are needed, after which
+ * {@link #cdf(Object) cdf}, {@link #tailProbability(Object) tailProbability},
+ * {@link #quantile(double) quantile} and {@link #median()} take O(log n) time.
+ *
+ * @see ProbMap#freeze()
+ *
+ * @param <K>	type of the keys
+ *
+ * @author kieran
+ */
+public final class FrozenProbMap<K> extends AbstractMap<K, Double> implements NavigableMap<K, Double>
+{
+	/**
+	 * Keys in ascending order of {@link #comp}
+	 */
+	private final K[] keys;
+	
+	/**
+	 * Probability of the key at the same index
+	 */
+	private final double[] probs;
+	
+	/**
+	 * Index of the first entry in this map
+	 */
+	private final int from;
+	
+	/**
+	 * Index after the last entry in this map
+	 */
+	private final int to;
+	
+	/**
+	 * Comparator by which the keys are ordered, or <code>null</code> for their natural ordering
+	 */
+	private final Comparator<? super K> comp;
+	
+	/**
+	 * Empty <code>ProbMap</code> which validates and sanitizes keys passed to lookups
+	 */
+	private final ProbMap<K> keyRules;
+	
+	/**
+	 * Cumulative probabilities of the entries in this map, or <code>null</code> until first needed
+	 */
+	private volatile CumulativeIndex cumulative;
+	
+	/**
+	 * Constructs a <code>FrozenProbMap</code> holding a copy of the entries of a <code>ProbMap</code>
+	 * @param pm	<code>ProbMap</code> to copy
+	 */
+	FrozenProbMap(ProbMap<K> pm)
+	{
+		@SuppressWarnings("unchecked")
+		final K[] keyArr = (K[]) new Object[pm.size()];
+		final double[] probArr = new double[pm.size()];
+		int i = 0;
+		
+		for (Entry<K, Double> entry : pm.rawEntrySet())
+		{
+			keyArr[i] = entry.getKey();
+			probArr[i] = entry.getValue();
+			i++;
+		}
+		
+		this.keys = keyArr;
+		this.probs = probArr;
+		this.from = 0;
+		this.to = i;
+		this.comp = pm.comparator();
+		this.keyRules = pm.get();
+	}
+	
+	/**
+	 * Constructs a <code>FrozenProbMap</code> which takes ownership of sorted arrays
+	 * @param keys		distinct, sanitized keys in ascending order of <code>keyRules</code>' comparator
+	 * @param probs		probability of the key at the same index
+	 * @param count		number of entries held in the arrays
+	 * @param keyRules	<code>ProbMap</code> which validates and sanitizes keys passed to lookups
+	 */
+	FrozenProbMap(K[] keys, double[] probs, int count, ProbMap<K> keyRules)
+	{
+		this(keys, probs, 0, count, keyRules.comparator(), keyRules);
+	}
+	
+	/**
+	 * Constructs a <code>FrozenProbMap</code> over a range of sorted arrays
+	 * @param keys		sorted keys
+	 * @param probs		probability of the key at the same index
+	 * @param from		index of the first entry in the map
+	 * @param to		index after the last entry in the map
+	 * @param comp		comparator by which the keys are ordered
+	 * @param keyRules	<code>ProbMap</code> which validates and sanitizes keys passed to lookups
+	 */
+	private FrozenProbMap(K[] keys, double[] probs, int from, int to, Comparator<? super K> comp, ProbMap<K> keyRules)
+	{
+		this.keys = keys;
+		this.probs = probs;
+		this.from = from;
+		this.to = to;
+		this.comp = comp;
+		this.keyRules = keyRules;
+	}
+	
+	/**
+	 * Create a new, mutable <code>ProbMap</code> of the same class as the <code>ProbMap</code>
+	 * which was frozen, holding the entries of this map.
+	 * The entries are loaded in linear time, unless this map is in descending order.
+	 * @return		mutable copy of this map
+	 */
+	public ProbMap<K> thaw()
+	{
+		ProbMap<K> pm = keyRules.get();
+		
+		if (Objects.equals(comp, pm.comparator()))
+			pm.loadSorted(this);
+		else
+			pm.putAll(this);
+		
+		return pm;
+	}
+	
+	/**
+	 * Get the probability of the key at a given position in the map
+	 * @param index		position of the key, counting from zero
+	 * @return			probability of the key
+	 * @throws IndexOutOfBoundsException if <code>index</code> is negative or not less than {@link #size()}
+	 */
+	public double probabilityAt(int index)
+	{
+		if (index < 0 || index >= size())
+			throw new IndexOutOfBoundsException();
+		
+		return probs[from + index];
+	}
+	
+	/**
+	 * Get the key at a given position in the map
+	 * @param index		position of the key, counting from zero
+	 * @return			the key
+	 * @throws IndexOutOfBoundsException if <code>index</code> is negative or not less than {@link #size()}
+	 */
+	public K keyAt(int index)
+	{
+		if (index < 0 || index >= size())
+			throw new IndexOutOfBoundsException();
+		
+		return keys[from + index];
+	}
+	
+	/**
+	 * Sum all the probabilities in the map
+	 * @return		total probability
+	 */
+	public double getMass()
+	{
+		final double[] sums = cumulativeIndex().sums;
+		return sums[sums.length - 1];
+	}
+	
+	/**
+	 * Find the cumulative probability of a key.
+	 * For a normalised map, this is the probability of observing a key no greater than <code>key</code>.
+	 * @param key	key to look up, which need not be present in the map
+	 * @return		sum of the probabilities of all keys less than or equal to <code>key</code>
+	 */
+	public double cdf(K key)
+	{
+		return cumulativeIndex().sums[floorIndex(sanitize(key)) + 1 - from];
+	}
+	
+	/**
+	 * Find the tail probability of a key.
+	 * For a normalised map, this is the probability of observing a key greater than <code>key</code>.
+	 * @param key	key to look up, which need not be present in the map
+	 * @return		sum of the probabilities of all keys greater than <code>key</code>
+	 */
+	public double tailProbability(K key)
+	{
+		final double[] sums = cumulativeIndex().sums;
+		return sums[sums.length - 1] - sums[floorIndex(sanitize(key)) + 1 - from];
+	}
+	
+	/**
+	 * Find a quantile of the map
+	 * @param p		fraction of the total probability, between zero and one inclusive
+	 * @return		the first entry which, when its probability is summed with the
+	 * 				probabilities of all preceding entries, results in a probability
+	 * 				greater than or equal to <code>p</code> times the sum of all the probabilities,
+	 * 				or <code>null</code> if the map is empty
+	 * @throws IllegalArgumentException if <code>p</code> lies outside the range zero to one
+	 */
+	public Entry<K, Double> quantile(double p)
+	{
+		if (!(p >= 0.0 && p <= 1.0))
+			throw new IllegalArgumentException("Quantile must lie between 0 and 1");
+		
+		if (isEmpty())
+			return null;
+		
+		final CumulativeIndex index = cumulativeIndex();
+		final double[] sums = index.sums;
+		final double target = p * sums[sums.length - 1];
+		
+		int found = sums.length - 1;
+		
+		if (index.monotone)
+		{
+			int lo = 1;
+			int hi = sums.length - 1;
+			
+			while (lo < hi)
+			{
+				final int mid = (lo + hi) >>> 1;
+				
+				if (sums[mid] >= target)
+					hi = mid;
+				else
+					lo = mid + 1;
+			}
+			
+			found = lo;
+		}
+		else
+		{
+			for (int i = 1; i < sums.length; i++)
+				if (sums[i] >= target)
+				{
+					found = i;
+					break;
+				}
+		}
+		
+		return entryAt(from + found - 1);
+	}
+	
+	/**
+	 * Find the median average of the map
+	 * @return		the first entry which, when its probability is summed with the
+	 * 				probabilities of all preceding entries, results in a probability
+	 * 				greater than or equal to half the sum of all the probabilities,
+	 * 				or <code>null</code> if the map is empty
+	 */
+	public Entry<K, Double> median()
+	{
+		return quantile(0.5);
+	}
+	
+	@Override
+	public int size()
+	{
+		return to - from;
+	}
+	
+	@Override
+	public boolean isEmpty()
+	{
+		return to == from;
+	}
+	
+	@Override
+	public Double get(Object key)
+	{
+		final int i = search(keyRules.makeKey(key));
+		
+		return (i >= 0) ? probs[i] : null;
+	}
+	
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return search(keyRules.makeKey(key)) >= 0;
+	}
+	
+	@Override
+	public Comparator<? super K> comparator()
+	{
+		return comp;
+	}
+	
+	@Override
+	public K firstKey()
+	{
+		if (isEmpty())
+			throw new NoSuchElementException();
+		
+		return keys[from];
+	}
+	
+	@Override
+	public K lastKey()
+	{
+		if (isEmpty())
+			throw new NoSuchElementException();
+		
+		return keys[to - 1];
+	}
+	
+	@Override public Entry<K, Double> firstEntry()			{return entryAt(from);}
+	@Override public Entry<K, Double> lastEntry()			{return entryAt(to - 1);}
+	@Override public Entry<K, Double> lowerEntry(K key)		{return entryAt(lowerIndex(sanitize(key)));}
+	@Override public Entry<K, Double> floorEntry(K key)		{return entryAt(floorIndex(sanitize(key)));}
+	@Override public Entry<K, Double> ceilingEntry(K key)	{return entryAt(ceilingIndex(sanitize(key)));}
+	@Override public Entry<K, Double> higherEntry(K key)	{return entryAt(higherIndex(sanitize(key)));}
+	@Override public K lowerKey(K key)						{return keyOf(lowerIndex(sanitize(key)));}
+	@Override public K floorKey(K key)						{return keyOf(floorIndex(sanitize(key)));}
+	@Override public K ceilingKey(K key)					{return keyOf(ceilingIndex(sanitize(key)));}
+	@Override public K higherKey(K key)						{return keyOf(higherIndex(sanitize(key)));}
+	
+	@Override public Entry<K, Double> pollFirstEntry()	{throw new UnsupportedOperationException();}
+	@Override public Entry<K, Double> pollLastEntry()	{throw new UnsupportedOperationException();}
+	@Override public Double put(K key, Double value)	{throw new UnsupportedOperationException();}
+	@Override public Double remove(Object key)			{throw new UnsupportedOperationException();}
+	@Override public void clear()						{throw new UnsupportedOperationException();}
+	
+	@Override
+	public Set<Entry<K, Double>> entrySet()
+	{
+		return new AbstractSet<Entry<K, Double>>()
+		{
+			@Override
+			public Iterator<Entry<K, Double>> iterator()
+			{
+				return new IndexIterator<Entry<K, Double>>()
+				{
+					@Override
+					Entry<K, Double> itemAt(int i)
+					{
+						return entryAt(i);
+					}
+				};
+			}
+			
+			@Override
+			public int size()
+			{
+				return FrozenProbMap.this.size();
+			}
+		};
+	}
+	
+	@Override
+	public Collection<Double> values()
+	{
+		return new AbstractCollection<Double>()
+		{
+			@Override
+			public Iterator<Double> iterator()
+			{
+				return new IndexIterator<Double>()
+				{
+					@Override
+					Double itemAt(int i)
+					{
+						return probs[i];
+					}
+				};
+			}
+			
+			@Override
+			public int size()
+			{
+				return FrozenProbMap.this.size();
+			}
+		};
+	}
+	
+	@Override
+	public NavigableSet<K> keySet()
+	{
+		return navigableKeySet();
+	}
+	
+	@Override
+	public NavigableSet<K> navigableKeySet()
+	{
+		return new KeySet();
+	}
+	
+	@Override
+	public NavigableSet<K> descendingKeySet()
+	{
+		return descendingMap().navigableKeySet();
+	}
+	
+	/**
+	 * Get a <code>FrozenProbMap</code> holding the entries of this map in reverse order.
+	 * Unlike the other views, this copies the entries.
+	 */
+	@Override
+	public FrozenProbMap<K> descendingMap()
+	{
+		final int n = size();
+		
+		@SuppressWarnings("unchecked")
+		final K[] revKeys = (K[]) new Object[n];
+		final double[] revProbs = new double[n];
+		
+		for (int i = 0; i < n; i++)
+		{
+			revKeys[i] = keys[to - 1 - i];
+			revProbs[i] = probs[to - 1 - i];
+		}
+		
+		return new FrozenProbMap<K>(revKeys, revProbs, 0, n, Collections.reverseOrder(comp), keyRules);
+	}
+	
+	@Override
+	public FrozenProbMap<K> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive)
+	{
+		final K fromSan = sanitize(fromKey);
+		final K toSan = sanitize(toKey);
+		
+		if (compare(fromSan, toSan) > 0)
+			throw new IllegalArgumentException("fromKey > toKey");
+		
+		final int newFrom = fromInclusive ? ceilingIndex(fromSan) : higherIndex(fromSan);
+		final int newTo = (toInclusive ? floorIndex(toSan) : lowerIndex(toSan)) + 1;
+		
+		return range(newFrom, newTo);
+	}
+	
+	@Override
+	public FrozenProbMap<K> headMap(K toKey, boolean inclusive)
+	{
+		final K toSan = sanitize(toKey);
+		
+		return range(from, (inclusive ? floorIndex(toSan) : lowerIndex(toSan)) + 1);
+	}
+	
+	@Override
+	public FrozenProbMap<K> tailMap(K fromKey, boolean inclusive)
+	{
+		final K fromSan = sanitize(fromKey);
+		
+		return range(inclusive ? ceilingIndex(fromSan) : higherIndex(fromSan), to);
+	}
+	
+	@Override public SortedMap<K, Double> subMap(K fromKey, K toKey)	{return subMap(fromKey, true, toKey, false);}
+	@Override public SortedMap<K, Double> headMap(K toKey)				{return headMap(toKey, false);}
+	@Override public SortedMap<K, Double> tailMap(K fromKey)			{return tailMap(fromKey, true);}
+	
+	@Override
+	public String toString()
+	{
+		StringBuffer s = new StringBuffer();
+		s.append("{");
+		
+		for (int i = from; i < to; i++)
+		{
+			if (s.length() != 1)
+				s.append(", ");
+			
+			s.append(keys[i].toString());
+			s.append(": ");
+			s.append(String.format("%5.3f", probs[i]));
+		}
+		
+		s.append("}");
+		return s.toString();
+	}
+	
+	/**
+	 * Get the index of cumulative probabilities, building it if this is the first time it is needed
+	 * @return		the index
+	 */
+	private CumulativeIndex cumulativeIndex()
+	{
+		CumulativeIndex index = cumulative;
+		
+		if (index == null)
+		{
+			index = new CumulativeIndex(probs, from, to);
+			cumulative = index;
+		}
+		
+		return index;
+	}
+	
+	/**
+	 * Get a view of a range of this map's entries
+	 * @param newFrom	index of the first entry in the view, clamped to this map's range
+	 * @param newTo		index after the last entry in the view, clamped to this map's range
+	 * @return			view of the range, or an empty view if the range is empty
+	 */
+	private FrozenProbMap<K> range(int newFrom, int newTo)
+	{
+		newFrom = Math.max(from, newFrom);
+		newTo = Math.min(to, Math.max(newFrom, newTo));
+		
+		return new FrozenProbMap<K>(keys, probs, newFrom, newTo, comp, keyRules);
+	}
+	
+	/**
+	 * Validate and sanitize a key passed to a lookup
+	 * @param key	key to sanitize
+	 * @return		the sanitized key
+	 */
+	private K sanitize(K key)
+	{
+		keyRules.validateKey(key);
+		return keyRules.sanitizeKey(key);
+	}
+	
+	/**
+	 * Compare two keys using the map's ordering
+	 * @param a		first key
+	 * @param b		second key
+	 * @return		negative, zero or positive as <code>a</code> is less than,
+	 * 				equal to or greater than <code>b</code>
+	 */
+	@SuppressWarnings("unchecked")
+	private int compare(K a, K b)
+	{
+		if (comp == null)
+			return ((Comparable<? super K>) a).compareTo(b);
+		
+		return comp.compare(a, b);
+	}
+	
+	/**
+	 * Binary search for a key, which is validated and sanitized first
+	 * @param key	key to find
+	 * @return		index of the key if present, otherwise <code>-(insertion point) - 1</code>
+	 */
+	private int search(K key)
+	{
+		return searchSanitized(sanitize(key));
+	}
+	
+	/**
+	 * Binary search for a key which has already been sanitized
+	 * @param key	sanitized key to find
+	 * @return		index of the key if present, otherwise <code>-(insertion point) - 1</code>
+	 */
+	private int searchSanitized(K key)
+	{
+		return Arrays.binarySearch(keys, from, to, key, comp);
+	}
+	
+	/**
+	 * Find the index of the greatest key strictly less than a sanitized key
+	 * @param key	sanitized key
+	 * @return		the index, which lies before this map's range if there is no such key
+	 */
+	private int lowerIndex(K key)
+	{
+		final int i = searchSanitized(key);
+		return (i >= 0) ? i - 1 : -i - 2;
+	}
+	
+	/**
+	 * Find the index of the greatest key less than or equal to a sanitized key
+	 * @param key	sanitized key
+	 * @return		the index, which lies before this map's range if there is no such key
+	 */
+	private int floorIndex(K key)
+	{
+		final int i = searchSanitized(key);
+		return (i >= 0) ? i : -i - 2;
+	}
+	
+	/**
+	 * Find the index of the least key greater than or equal to a sanitized key
+	 * @param key	sanitized key
+	 * @return		the index, which lies after this map's range if there is no such key
+	 */
+	private int ceilingIndex(K key)
+	{
+		final int i = searchSanitized(key);
+		return (i >= 0) ? i : -i - 1;
+	}
+	
+	/**
+	 * Find the index of the least key strictly greater than a sanitized key
+	 * @param key	sanitized key
+	 * @return		the index, which lies after this map's range if there is no such key
+	 */
+	private int higherIndex(K key)
+	{
+		final int i = searchSanitized(key);
+		return (i >= 0) ? i + 1 : -i - 1;
+	}
+	
+	/**
+	 * Get the entry at an index of the arrays
+	 * @param i		index of the entry
+	 * @return		the entry, or <code>null</code> if the index lies outside this map's range
+	 */
+	private Entry<K, Double> entryAt(int i)
+	{
+		if (i < from || i >= to)
+			return null;
+		
+		return new SimpleImmutableEntry<K, Double>(keys[i], probs[i]);
+	}
+	
+	/**
+	 * Get the key at an index of the arrays
+	 * @param i		index of the key
+	 * @return		the key, or <code>null</code> if the index lies outside this map's range
+	 */
+	private K keyOf(int i)
+	{
+		if (i < from || i >= to)
+			return null;
+		
+		return keys[i];
+	}
+	
+	/**
+	 * Prefix sums of the probabilities in a range
+	 *
+	 * @author kieran
+	 */
+	private static final class CumulativeIndex
+	{
+		/**
+		 * Element <code>i</code> is the sum of the first <code>i</code> probabilities in the range
+		 */
+		private final double[] sums;
+		
+		/**
+		 * True iff no probability in the range is negative, so the sums never decrease
+		 */
+		private final boolean monotone;
+		
+		/**
+		 * Constructs a <code>CumulativeIndex</code> of the probabilities in a range
+		 * @param probs		probabilities
+		 * @param from		index of the first probability in the range
+		 * @param to		index after the last probability in the range
+		 */
+		private CumulativeIndex(double[] probs, int from, int to)
+		{
+			sums = new double[to - from + 1];
+			boolean nonNegative = true;
+			
+			for (int i = from; i < to; i++)
+			{
+				sums[i - from + 1] = sums[i - from] + probs[i];
+				nonNegative &= probs[i] >= 0.0;
+			}
+			
+			monotone = nonNegative;
+		}
+	}
+	
+	/**
+	 * Read-only <code>Iterator</code> over the indices of this map's range
+	 *
+	 * @param <T>	type of the items returned
+	 *
+	 * @author kieran
+	 */
+	private abstract class IndexIterator<T> implements Iterator<T>
+	{
+		/**
+		 * Index of the next item
+		 */
+		private int index = from;
+		
+		/**
+		 * Get the item at an index of the arrays
+		 * @param i		index of the item
+		 * @return		the item
+		 */
+		abstract T itemAt(int i);
+		
+		@Override
+		public boolean hasNext()
+		{
+			return index < to;
+		}
+		
+		@Override
+		public T next()
+		{
+			if (index >= to)
+				throw new NoSuchElementException();
+			
+			return itemAt(index++);
+		}
+	}
+	
+	/**
+	 * Read-only <code>NavigableSet</code> view of the keys of the map
+	 *
+	 * @author kieran
+	 */
+	private final class KeySet extends AbstractSet<K> implements NavigableSet<K>
+	{
+		@Override
+		public Iterator<K> iterator()
+		{
+			return new IndexIterator<K>()
+			{
+				@Override
+				K itemAt(int i)
+				{
+					return keys[i];
+				}
+			};
+		}
+		
+		@Override public int size()								{return FrozenProbMap.this.size();}
+		@Override public boolean contains(Object o)				{return containsKey(o);}
+		@Override public Comparator<? super K> comparator()		{return comp;}
+		@Override public K first()								{return firstKey();}
+		@Override public K last()								{return lastKey();}
+		@Override public K lower(K e)							{return lowerKey(e);}
+		@Override public K floor(K e)							{return floorKey(e);}
+		@Override public K ceiling(K e)							{return ceilingKey(e);}
+		@Override public K higher(K e)							{return higherKey(e);}
+		@Override public K pollFirst()							{throw new UnsupportedOperationException();}
+		@Override public K pollLast()							{throw new UnsupportedOperationException();}
+		@Override public boolean remove(Object o)				{throw new UnsupportedOperationException();}
+		@Override public void clear()							{throw new UnsupportedOperationException();}
+		@Override public NavigableSet<K> descendingSet()		{return descendingKeySet();}
+		@Override public Iterator<K> descendingIterator()		{return descendingKeySet().iterator();}
+		@Override public SortedSet<K> headSet(K toElement)		{return headSet(toElement, false);}
+		@Override public SortedSet<K> tailSet(K fromElement)	{return tailSet(fromElement, true);}
+		
+		@Override
+		public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement, boolean toInclusive)
+		{
+			return subMap(fromElement, fromInclusive, toElement, toInclusive).navigableKeySet();
+		}
+		
+		@Override
+		public NavigableSet<K> headSet(K toElement, boolean inclusive)
+		{
+			return headMap(toElement, inclusive).navigableKeySet();
+		}
+		
+		@Override
+		public NavigableSet<K> tailSet(K fromElement, boolean inclusive)
+		{
+			return tailMap(fromElement, inclusive).navigableKeySet();
+		}
+		
+		@Override
+		public SortedSet<K> subSet(K fromElement, K toElement)
+		{
+			return subSet(fromElement, true, toElement, false);
+		}
+	}
+}
@@ -22,6 +22,11 @@ public class ImmutableList<T> implements List<T>
 	 */
 	private final T[] myArray;
 	
+	/**
+	 * Cached hash code, or zero if it has not yet been calculated
+	 */
+	private int hash;
+	
 	/**
 	 * Constructs an <code>ImmutableList</code> with elements copied in order from an array.
 	 * @param ts	array from which elements are copied
@@ -114,6 +119,29 @@ public class ImmutableList<T> implements List<T>
 		return !compIter.hasNext();
 	}
 
+	/**
+	 * Returns the hash code defined by {@link java.util.List#hashCode() List.hashCode()},
+	 * which is calculated once and cached.
+	 * Elements must not change their hash codes once added to the <code>ImmutableList</code>.
+	 */
+	@Override
+	public int hashCode()
+	{
+		int h = hash;
+		
+		if (h == 0)
+		{
+			h = 1;
+			
+			for (T t : myArray)
+				h = 31 * h + (t == null ? 0 : t.hashCode());
+			
+			hash = h;
+		}
+		
+		return h;
+	}
+	
 	@Override
 	public T get(int index)
 	{
@@ -0,0 +1,133 @@
+package diceTools;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * {@link java.util.function.Function Function} which caches the results of another
+ * <code>Function</code>, so that each result is only calculated once for equal inputs.
+ * <p>The cache holds at most a fixed number of results, discarding the least recently used
+ * result when it is full. It is safe to share a <code>Memoizer</code> between threads, such as
+ * those used by {@link ProbMap#forkParallel(Function, java.util.function.Supplier) forkParallel}.
+ * The lock is not held while a result is calculated, so the same result may occasionally be
+ * calculated more than once.
+ * <p>Cached results are shared between every caller, so must not be modified.
+ * The wrapped <code>Function</code> must always return equal results for equal inputs.
+ *
+ * @param <T>	type of the inputs
+ * @param <R>	type of the results
+ *
+ * @see ProbMap#forkMemoized(Function, Memoizer, java.util.function.Supplier)
+ * @see ProbMap#morphMemoized(Function, Memoizer, java.util.function.Supplier)
+ *
+ * @author kieran
+ */
+public final class Memoizer<T, R> implements Function<T, R>
+{
+	/**
+	 * Number of results cached by default
+	 */
+	public static final int DEFAULT_MAX_SIZE = 1024;
+	
+	/**
+	 * <code>Function</code> whose results are cached
+	 */
+	private final Function<? super T, ? extends R> function;
+	
+	/**
+	 * Maximum number of results cached
+	 */
+	private final int maxSize;
+	
+	/**
+	 * Cached results, in order of least recent use
+	 */
+	private final LinkedHashMap<T, R> cache;
+	
+	/**
+	 * Constructs a <code>Memoizer</code> which caches up to {@link #DEFAULT_MAX_SIZE} results
+	 * @param function	<code>Function</code> whose results are cached
+	 */
+	public Memoizer(Function<? super T, ? extends R> function)
+	{
+		this(function, DEFAULT_MAX_SIZE);
+	}
+	
+	/**
+	 * Constructs a <code>Memoizer</code>
+	 * @param function	<code>Function</code> whose results are cached
+	 * @param maxSize	maximum number of results cached
+	 */
+	@SuppressWarnings("serial")
+	public Memoizer(Function<? super T, ? extends R> function, int maxSize)
+	{
+		if (maxSize <= 0)
+			throw new IllegalArgumentException("Maximum cache size must be positive");
+		
+		this.function = function;
+		this.maxSize = maxSize;
+		this.cache = new LinkedHashMap<T, R>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<T, R> eldest)
+			{
+				return size() > Memoizer.this.maxSize;
+			}
+		};
+	}
+	
+	@Override
+	public R apply(T t)
+	{
+		synchronized (cache)
+		{
+			final R cached = cache.get(t);
+			
+			if (cached != null)
+				return cached;
+		}
+		
+		final R result = function.apply(t);
+		
+		if (result != null)
+			synchronized (cache)
+			{
+				cache.put(t, result);
+			}
+		
+		return result;
+	}
+	
+	/**
+	 * Get the number of results currently cached
+	 * @return		size of the cache
+	 */
+	public int size()
+	{
+		synchronized (cache)
+		{
+			return cache.size();
+		}
+	}
+	
+	/**
+	 * Get the maximum number of results cached
+	 * @return		maximum size of the cache
+	 */
+	public int getMaxSize()
+	{
+		return maxSize;
+	}
+	
+	/**
+	 * Discard every cached result
+	 */
+	public void clear()
+	{
+		synchronized (cache)
+		{
+			cache.clear();
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package diceTools;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Lazy view of a {@link ProbMap} with a chain of key transforms applied.
+ * <p>Each call to {@link #morph(Function, Supplier) morph} composes another transform
+ * onto the chain without touching the source <code>ProbMap</code>. When the view is
+ * {@link #materialize() materialized}, the composed transform is applied to each key of
+ * the source in a single merge pass, so no intermediate <code>ProbMap</code>s are built.
+ * <p>The source <code>ProbMap</code> must not be modified while the view is in use.
+ * The materialized <code>ProbMap</code> is cached, and must not be modified either.
+ *
+ * @param <S>	type of the keys of the source <code>ProbMap</code>
+ * @param <K>	type of the keys of the materialized <code>ProbMap</code>
+ *
+ * @author kieran
+ */
+public final class MorphView<S, K>
+{
+	/**
+	 * <code>ProbMap</code> whose keys are transformed
+	 */
+	private final ProbMap<S> source;
+	
+	/**
+	 * Composition of all the transforms in the chain
+	 */
+	private final Function<? super S, ? extends K> transform;
+	
+	/**
+	 * Supplier of the empty <code>ProbMap</code> into which the view is materialized
+	 */
+	private final Supplier<? extends ProbMap<K>> supplier;
+	
+	/**
+	 * Number of transforms in the chain
+	 */
+	private final int depth;
+	
+	/**
+	 * Materialized <code>ProbMap</code>, or <code>null</code> if the view has not yet been materialized
+	 */
+	private ProbMap<K> materialized = null;
+	
+	/**
+	 * Constructs a <code>MorphView</code>
+	 * @param source		<code>ProbMap</code> whose keys are transformed
+	 * @param transform		composition of all the transforms in the chain
+	 * @param supplier		supplier of the empty <code>ProbMap</code> into which the view is materialized
+	 * @param depth			number of transforms in the chain
+	 */
+	private MorphView(ProbMap<S> source, Function<? super S, ? extends K> transform,
+			Supplier<? extends ProbMap<K>> supplier, int depth)
+	{
+		this.source = source;
+		this.transform = transform;
+		this.supplier = supplier;
+		this.depth = depth;
+	}
+	
+	/**
+	 * Create a <code>MorphView</code> of a <code>ProbMap</code> with no transforms applied
+	 * @param <T>	type of the keys of the <code>ProbMap</code>
+	 * @param pm	<code>ProbMap</code> to view
+	 * @return		view which materializes to a copy of <code>pm</code>,
+	 * 				of the same class as <code>pm</code>
+	 */
+	public static <T> MorphView<T, T> of(ProbMap<T> pm)
+	{
+		return new MorphView<T, T>(pm, Function.identity(), pm, 0);
+	}
+	
+	/**
+	 * Compose a transform onto the chain, keeping the key type.
+	 * The view is materialized into the same class of <code>ProbMap</code> as before.
+	 * @param f		rule for mapping keys
+	 * @return		new view with <code>f</code> applied after the existing transforms
+	 */
+	public MorphView<S, K> morph(Function<? super K, ? extends K> f)
+	{
+		return morph(f, supplier);
+	}
+	
+	/**
+	 * Compose a transform onto the chain which changes the key type
+	 * @param <T>	type of the keys of the new view
+	 * @param f		rule for mapping keys
+	 * @param s		{@link java.util.function.Supplier Supplier}
+	 * 				which can {@link java.util.function.Supplier#get get}()
+	 * 				an empty <code>ProbMap</code> with keys of the new type
+	 * @return		new view with <code>f</code> applied after the existing transforms
+	 */
+	public <T> MorphView<S, T> morph(Function<? super K, ? extends T> f, Supplier<? extends ProbMap<T>> s)
+	{
+		final Function<? super S, ? extends K> before = transform;
+		
+		Function<S, T> composed = (key) -> {
+			return f.apply(before.apply(key));
+		};
+		
+		return new MorphView<S, T>(source, composed, s, depth + 1);
+	}
+	
+	/**
+	 * Apply the composed transform to the source <code>ProbMap</code> in a single merge pass.
+	 * The result is cached, so later calls return the same <code>ProbMap</code>.
+	 * @return		<code>ProbMap</code> containing the morphed data,
+	 * 				created by the supplier of the last transform
+	 * @see ProbMap#morph(Function, Supplier)
+	 */
+	public ProbMap<K> materialize()
+	{
+		if (materialized == null)
+			materialized = source.morph(transform, supplier);
+		
+		return materialized;
+	}
+	
+	/**
+	 * Get the number of transforms composed onto the source <code>ProbMap</code>
+	 * @return		length of the chain of transforms
+	 */
+	public int depth()
+	{
+		return depth;
+	}
+	
+	/**
+	 * Get the <code>ProbMap</code> whose keys are transformed
+	 * @return		the source <code>ProbMap</code>
+	 */
+	public ProbMap<S> getSource()
+	{
+		return source;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("%d morph%s of %d keys", depth, depth == 1 ? "" : "s", source.size());
+	}
+}
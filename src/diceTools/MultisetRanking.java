@@ -0,0 +1,230 @@
+package diceTools;
+
+/**
+ * Numbers the combinations of rolling a set of identical dice, in the order in which
+ * {@link DiceRollIterable} visits them, so that ranges of combinations can be
+ * located and enumerated independently.
+ * <p>A combination is represented by the number of dice showing each face, where index
+ * <code>i</code> of the count vector holds face <code>i + 1</code>. Count vectors are
+ * ordered by the count of the highest face, then the count of the next highest face,
+ * and so on down to face one. Ranks are held in a <code>long</code>, and any calculation
+ * which would overflow throws an {@link ArithmeticException} rather than wrapping.
+ * <p>The first call to {@link #rank(int[]) rank} or {@link #unrank(long, int[]) unrank} builds
+ * a table of the number of combinations of every smaller set of dice and faces, after which
+ * each call takes O(<code>numDice + numSides</code>) time.
+ *
+ * @author kieran
+ */
+public final class MultisetRanking
+{
+	/**
+	 * Number of dice rolled
+	 */
+	private final int numDice;
+	
+	/**
+	 * Number of sides on the dice
+	 */
+	private final int numSides;
+	
+	/**
+	 * Number of combinations of <code>d</code> dice showing the lowest <code>k</code> faces
+	 * at index <code>[k][d]</code>, or <code>-1</code> where that number would overflow.
+	 * Built the first time it is needed.
+	 */
+	private long[][] table = null;
+	
+	/**
+	 * Constructs a <code>MultisetRanking</code> for a set of identical dice
+	 * @param numDice		number of dice rolled
+	 * @param numSides		number of sides on the dice
+	 */
+	public MultisetRanking(int numDice, int numSides)
+	{
+		if (numDice < 0 || numSides < 0)
+			throw new IllegalArgumentException("Numbers of dice and sides cannot be negative");
+		
+		this.numDice = numDice;
+		this.numSides = numSides;
+	}
+	
+	/**
+	 * Count the combinations.
+	 * Rolling no dice has exactly one combination, in which no dice are shown.
+	 * @return		number of distinct combinations of rolls
+	 * @throws ArithmeticException if the number does not fit in a <code>long</code>
+	 */
+	public long size()
+	{
+		if (numDice == 0)
+			return 1;
+		
+		if (numSides == 0)
+			return 0;
+		
+		return compositions(numDice, numSides);
+	}
+	
+	/**
+	 * Find the rank of a combination
+	 * @param counts	number of dice showing each face
+	 * @return			number of combinations which come before <code>counts</code>
+	 * @throws ArithmeticException if the rank does not fit in a <code>long</code>
+	 */
+	public long rank(int[] counts)
+	{
+		long rank = 0;
+		int remaining = numDice;
+		
+		for (int k = numSides - 1; k > 0; k--)
+		{
+			for (int v = 0; v < counts[k]; v++)
+				rank = Math.addExact(rank, lookup(remaining - v, k));
+			
+			remaining -= counts[k];
+		}
+		
+		return rank;
+	}
+	
+	/**
+	 * Find the combination with a given rank
+	 * @param rank		number of combinations which come before the one to find
+	 * @param counts	array of length <code>numSides</code> into which the number
+	 * 					of dice showing each face is written
+	 * @throws IndexOutOfBoundsException if <code>rank</code> is negative or not less than {@link #size()}
+	 */
+	public void unrank(long rank, int[] counts)
+	{
+		if (rank < 0 || rank >= size())
+			throw new IndexOutOfBoundsException("Rank: " + rank + ", Size: " + size());
+		
+		int remaining = numDice;
+		
+		for (int k = numSides - 1; k > 0; k--)
+		{
+			int v = 0;
+			
+			while (true)
+			{
+				final long block = lookup(remaining - v, k);
+				
+				if (rank < block)
+					break;
+				
+				rank -= block;
+				v++;
+			}
+			
+			counts[k] = v;
+			remaining -= v;
+		}
+		
+		if (numSides > 0)
+			counts[0] = remaining;
+	}
+	
+	/**
+	 * Look up the number of ways of rolling a number of dice showing only the lowest faces
+	 * @param dice		number of dice, between zero and <code>numDice</code>
+	 * @param sides		number of faces, between one and <code>numSides - 1</code>
+	 * @return			number of combinations, as calculated by {@link #compositions(int, int)}
+	 * @throws ArithmeticException if the number does not fit in a <code>long</code>
+	 */
+	private long lookup(int dice, int sides)
+	{
+		if (table == null)
+			table = buildTable();
+		
+		final long count = table[sides][dice];
+		
+		if (count < 0)
+			throw new ArithmeticException("long overflow");
+		
+		return count;
+	}
+	
+	/**
+	 * Build the table of combinations by Pascal's rule: the combinations of <code>d</code> dice
+	 * on <code>k</code> faces either have no dice on the highest face, or have at least one
+	 * @return		table of combinations, with <code>-1</code> marking overflow
+	 */
+	private long[][] buildTable()
+	{
+		long[][] newTable = new long[Math.max(numSides, 1)][numDice + 1];
+		
+		for (int k = 1; k < newTable.length; k++)
+		{
+			newTable[k][0] = 1;
+			
+			for (int d = 1; d <= numDice; d++)
+			{
+				final long without = (k == 1) ? 0 : newTable[k - 1][d];
+				final long with = newTable[k][d - 1];
+				
+				if (without < 0 || with < 0 || with > Long.MAX_VALUE - without)
+					newTable[k][d] = -1;
+				else
+					newTable[k][d] = without + with;
+			}
+		}
+		
+		return newTable;
+	}
+	
+	/**
+	 * Count the ways of rolling a number of dice with a number of sides,
+	 * ignoring the order of the dice
+	 * @param dice		number of dice
+	 * @param sides		number of sides, at least one
+	 * @return			binomial coefficient <code>(dice + sides - 1)</code> choose <code>(sides - 1)</code>
+	 * @throws ArithmeticException if the result does not fit in a <code>long</code>
+	 */
+	private static long compositions(int dice, int sides)
+	{
+		return binomial(dice + sides - 1, sides - 1);
+	}
+	
+	/**
+	 * Calculate a binomial coefficient exactly
+	 * @param n		size of the set
+	 * @param k		size of the subsets
+	 * @return		<code>n</code> choose <code>k</code>
+	 * @throws ArithmeticException if the result does not fit in a <code>long</code>
+	 */
+	private static long binomial(int n, int k)
+	{
+		k = Math.min(k, n - k);
+		
+		long result = 1;
+		
+		//Each partial product is itself a binomial coefficient, so every division is exact.
+		//Dividing by the common factor first means only a result which overflows can throw.
+		for (int i = 1; i <= k; i++)
+		{
+			final long g = gcd(result, i);
+			
+			result = Math.multiplyExact(result / g, (n - k + i) / (i / g));
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Find the greatest common divisor of two numbers by Euclid's algorithm
+	 * @param a		first number, not negative
+	 * @param b		second number, not negative
+	 * @return		greatest common divisor of <code>a</code> and <code>b</code>
+	 */
+	private static long gcd(long a, long b)
+	{
+		while (b != 0)
+		{
+			final long t = a % b;
+			a = b;
+			b = t;
+		}
+		
+		return a;
+	}
+}
@@ -0,0 +1,342 @@
+package diceTools;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link SortedDiceList} of small integer dice faces, packed eight to a <code>long</code>.
+ * <p>Each face is stored in a single byte, offset so that the bytes compare in the same order
+ * as the faces they store. Faces are held in ascending order with the first face in the most
+ * significant byte of the first <code>long</code>, so two <code>PackedDiceList</code>s of the
+ * same size are compared by comparing their <code>long</code>s as unsigned numbers.
+ * The hash code defined by {@link java.util.List#hashCode() List.hashCode()} is calculated
+ * when the <code>PackedDiceList</code> is constructed.
+ * <p>Faces are only boxed into {@link DiceNumber}s when they are read through the
+ * <code>List</code> interface, and then only from the cache used by {@link DiceNumber#valueOf(int)}.
+ * A <code>PackedDiceList</code> is equal to any other <code>List</code> holding equal
+ * {@link DiceNumber.DiceInteger DiceInteger}s in the same order.
+ *
+ * @author kieran
+ */
+public final class PackedDiceList extends AbstractList<DiceNumber> implements SortedDiceList, Comparable<PackedDiceList>
+{
+	/**
+	 * Smallest face which can be packed
+	 */
+	public static final int MIN_FACE = Byte.MIN_VALUE;
+	
+	/**
+	 * Largest face which can be packed
+	 */
+	public static final int MAX_FACE = Byte.MAX_VALUE;
+	
+	/**
+	 * Number of faces packed into each <code>long</code>
+	 */
+	private static final int FACES_PER_WORD = Long.BYTES;
+	
+	/**
+	 * Faces in ascending order, each stored as an unsigned byte offset by <code>-MIN_FACE</code>
+	 */
+	private final long[] words;
+	
+	/**
+	 * Number of faces
+	 */
+	private final int size;
+	
+	/**
+	 * Hash code defined by <code>List.hashCode()</code>
+	 */
+	private final int hash;
+	
+	/**
+	 * Constructs a <code>PackedDiceList</code> from packed faces
+	 * @param words		faces in ascending order, packed by {@link #pack(int[])}
+	 * @param size		number of faces
+	 */
+	private PackedDiceList(long[] words, int size)
+	{
+		this.words = words;
+		this.size = size;
+		
+		int h = 1;
+		
+		for (int i = 0; i < size; i++)
+			h = 31 * h + Integer.hashCode(face(i));
+		
+		this.hash = h;
+	}
+	
+	/**
+	 * Check whether a face can be packed
+	 * @param face		face to check
+	 * @return			<code>true</code> if <code>face</code> lies between
+	 * 					{@link #MIN_FACE} and {@link #MAX_FACE} inclusive
+	 */
+	public static boolean canPack(int face)
+	{
+		return face >= MIN_FACE && face <= MAX_FACE;
+	}
+	
+	/**
+	 * Check whether every <code>DiceNumber</code> in a <code>List</code> can be packed
+	 * @param list		<code>List</code> to check
+	 * @return			<code>true</code> if every element is a non-null <code>int</code>
+	 * 					which {@link #canPack(int) can be packed}
+	 */
+	public static boolean canPack(List<? extends DiceNumber> list)
+	{
+		if (list instanceof PackedDiceList)
+			return true;
+		
+		for (DiceNumber n : list)
+			if (n == null || !n.isInt() || !canPack(n.intValue()))
+				return false;
+		
+		return true;
+	}
+	
+	/**
+	 * Create a <code>PackedDiceList</code> holding a set of faces in ascending order
+	 * @param faces		faces to hold, in any order
+	 * @return			<code>PackedDiceList</code> holding the sorted faces
+	 * @throws IllegalArgumentException if any face {@link #canPack(int) cannot be packed}
+	 */
+	public static PackedDiceList of(int... faces)
+	{
+		int[] sorted = Arrays.copyOf(faces, faces.length);
+		Arrays.sort(sorted);
+		
+		if (sorted.length > 0 && !(canPack(sorted[0]) && canPack(sorted[sorted.length - 1])))
+			throw new IllegalArgumentException("Faces must lie between " + MIN_FACE + " and " + MAX_FACE);
+		
+		return new PackedDiceList(pack(sorted), sorted.length);
+	}
+	
+	/**
+	 * Create a <code>PackedDiceList</code> from faces which are already in ascending order.
+	 * The array is not retained, so may be reused by the caller.
+	 * @param sorted	faces in ascending order, each of which {@link #canPack(int) can be packed}
+	 * @return			<code>PackedDiceList</code> holding the faces
+	 */
+	static PackedDiceList ofSorted(int[] sorted)
+	{
+		return new PackedDiceList(pack(sorted), sorted.length);
+	}
+	
+	/**
+	 * Create a <code>PackedDiceList</code> holding the <code>DiceNumber</code>s in a <code>List</code>
+	 * in ascending order
+	 * @param list		<code>DiceNumber</code>s to hold, in any order
+	 * @return			<code>PackedDiceList</code> holding the sorted <code>DiceNumber</code>s
+	 * @throws IllegalArgumentException if the <code>List</code> {@link #canPack(List) cannot be packed}
+	 */
+	public static PackedDiceList of(List<? extends DiceNumber> list)
+	{
+		if (list instanceof PackedDiceList)
+			return (PackedDiceList) list;
+		
+		if (!canPack(list))
+			throw new IllegalArgumentException("List cannot be packed");
+		
+		int[] faces = new int[list.size()];
+		int i = 0;
+		
+		for (DiceNumber n : list)
+			faces[i++] = n.intValue();
+		
+		if (SortedArrayDiceList.isTrusted(list))
+			return ofSorted(faces);
+		
+		return of(faces);
+	}
+	
+	/**
+	 * Pack sorted faces into <code>long</code>s
+	 * @param sorted	faces in ascending order, each of which can be packed
+	 * @return			packed faces
+	 */
+	private static long[] pack(int[] sorted)
+	{
+		long[] packed = new long[(sorted.length + FACES_PER_WORD - 1) / FACES_PER_WORD];
+		
+		for (int i = 0; i < sorted.length; i++)
+			packed[i / FACES_PER_WORD] |= ((long) (sorted[i] - MIN_FACE)) << shift(i);
+		
+		return packed;
+	}
+	
+	/**
+	 * Get the position within its <code>long</code> of a packed face
+	 * @param index		index of the face
+	 * @return			number of bits the face is shifted left by
+	 */
+	private static int shift(int index)
+	{
+		return Byte.SIZE * (FACES_PER_WORD - 1 - index % FACES_PER_WORD);
+	}
+	
+	/**
+	 * Get a face without boxing it
+	 * @param index		index of the face
+	 * @return			face at <code>index</code>
+	 * @throws IndexOutOfBoundsException if <code>index</code> is out of range
+	 */
+	public int face(int index)
+	{
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		
+		return (int) ((words[index / FACES_PER_WORD] >>> shift(index)) & 0xFF) + MIN_FACE;
+	}
+	
+	/**
+	 * Copy the faces into an array
+	 * @return		faces in ascending order
+	 */
+	public int[] toIntArray()
+	{
+		int[] faces = new int[size];
+		
+		for (int i = 0; i < size; i++)
+			faces[i] = face(i);
+		
+		return faces;
+	}
+	
+	/**
+	 * Sum the faces without boxing them
+	 * @return		sum of all the faces
+	 */
+	public int sum()
+	{
+		int total = 0;
+		
+		for (int i = 0; i < size; i++)
+			total += face(i);
+		
+		return total;
+	}
+	
+	/**
+	 * Create a <code>PackedDiceList</code> holding these faces and one more
+	 * @param face		face to add
+	 * @return			new <code>PackedDiceList</code> with <code>face</code> inserted in order
+	 * @throws IllegalArgumentException if <code>face</code> {@link #canPack(int) cannot be packed}
+	 */
+	public PackedDiceList with(int face)
+	{
+		if (!canPack(face))
+			throw new IllegalArgumentException("Faces must lie between " + MIN_FACE + " and " + MAX_FACE);
+		
+		int[] faces = new int[size + 1];
+		int i = 0;
+		int j = 0;
+		
+		while (i < size && face(i) <= face)
+			faces[j++] = face(i++);
+		
+		faces[j++] = face;
+		
+		while (i < size)
+			faces[j++] = face(i++);
+		
+		return new PackedDiceList(pack(faces), faces.length);
+	}
+	
+	/**
+	 * Create a <code>PackedDiceList</code> holding the faces of this and another <code>PackedDiceList</code>
+	 * @param other		<code>PackedDiceList</code> whose faces are added
+	 * @return			new <code>PackedDiceList</code> with the faces of both merged in order
+	 */
+	public PackedDiceList withAll(PackedDiceList other)
+	{
+		int[] faces = new int[size + other.size];
+		int i = 0;
+		int j = 0;
+		int k = 0;
+		
+		while (i < size && j < other.size)
+		{
+			if (face(i) <= other.face(j))
+				faces[k++] = face(i++);
+			else
+				faces[k++] = other.face(j++);
+		}
+		
+		while (i < size)
+			faces[k++] = face(i++);
+		
+		while (j < other.size)
+			faces[k++] = other.face(j++);
+		
+		return new PackedDiceList(pack(faces), faces.length);
+	}
+	
+	@Override
+	public PackedDiceList slice(int fromIndex, int toIndex)
+	{
+		if (fromIndex == 0 && toIndex == size)
+			return this;
+		
+		if (fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + size);
+		
+		int[] faces = new int[toIndex - fromIndex];
+		
+		for (int i = 0; i < faces.length; i++)
+			faces[i] = face(fromIndex + i);
+		
+		return ofSorted(faces);
+	}
+	
+	/**
+	 * Compare to another <code>PackedDiceList</code> in the same order as
+	 * {@link DicePoolMap} orders its keys: by size, then face by face.
+	 * Whole <code>long</code>s of faces are compared at once.
+	 */
+	@Override
+	public int compareTo(PackedDiceList other)
+	{
+		if (size != other.size)
+			return Integer.compare(size, other.size);
+		
+		for (int w = 0; w < words.length; w++)
+			if (words[w] != other.words[w])
+				return Long.compareUnsigned(words[w], other.words[w]);
+		
+		return 0;
+	}
+	
+	@Override
+	public DiceNumber get(int index)
+	{
+		return DiceNumber.valueOf(face(index));
+	}
+	
+	@Override
+	public int size()
+	{
+		return size;
+	}
+	
+	@Override
+	public int hashCode()
+	{
+		return hash;
+	}
+	
+	@Override
+	public boolean equals(Object o)
+	{
+		if (o instanceof PackedDiceList)
+		{
+			PackedDiceList other = (PackedDiceList) o;
+			return size == other.size && hash == other.hash && Arrays.equals(words, other.words);
+		}
+		
+		return super.equals(o);
+	}
+}
@@ -1,18 +1,22 @@
 package diceTools;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
-import java.util.function.Consumer;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Stores the probabilities of observing discrete events (such as dice rolls or darts scores).
@@ -38,6 +42,25 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 	 */
 	private static final Function<Number, Double> toDouble;
 	
+	/**
+	 * Minimum amount of work for which {@link #combine(BiFunction, ProbMap, Supplier) combine},
+	 * {@link #morph(Function, Supplier) morph} and {@link #fork(Function, Supplier) fork}
+	 * run in parallel. Parallel operation is disabled by default.
+	 * @see #setParallelThreshold(long)
+	 */
+	private static volatile long parallelThreshold = Long.MAX_VALUE;
+	
+	/**
+	 * Snapshot which answers cumulative probability queries,
+	 * or <code>null</code> if the <code>ProbMap</code> has been modified since it was taken
+	 */
+	private transient FrozenProbMap<K> frozenIndex;
+	
+	/**
+	 * Running sum of all the probabilities in the <code>ProbMap</code>
+	 */
+	private double mass = 0.0;
+	
 	/**
 	 * <code>put</code>s key-value pairs into the ProbMap
 	 */
@@ -89,6 +112,7 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 	public ProbMap(ProbMap<K> pm)
 	{
 		super(pm);
+		mass = pm.mass;
 	}
 	
 	@Override
@@ -122,15 +146,14 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 	@Override
 	public SortedMap<K, Double> headMap(K toKey)
 	{
-		validateKey(toKey);
-		return super.headMap(sanitizeKey(toKey));
+		return headMap(toKey, false);
 	}
 
 	@Override
 	public NavigableMap<K, Double> headMap(K toKey, boolean inclusive)
 	{
 		validateKey(toKey);
-		return super.headMap(sanitizeKey(toKey), inclusive);
+		return new ProbMapView<K>(this, super.headMap(sanitizeKey(toKey), inclusive));
 	}
 
 	@Override
@@ -166,29 +189,91 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 	{
 		validateKey(fromKey);
 		validateKey(toKey);
-		return super.subMap(sanitizeKey(fromKey), fromInclusive, sanitizeKey(toKey), toInclusive);
+		return new ProbMapView<K>(this, super.subMap(sanitizeKey(fromKey), fromInclusive, sanitizeKey(toKey), toInclusive));
 	}
 
 	@Override
 	public SortedMap<K, Double> subMap(K fromKey, K toKey)
 	{
-		validateKey(fromKey);
-		validateKey(toKey);
-		return super.subMap(sanitizeKey(fromKey), sanitizeKey(toKey));
+		return subMap(fromKey, true, toKey, false);
 	}
 
 	@Override
 	public SortedMap<K, Double> tailMap(K fromKey)
 	{
-		validateKey(fromKey);
-		return super.tailMap(sanitizeKey(fromKey));
+		return tailMap(fromKey, true);
 	}
 
 	@Override
 	public NavigableMap<K, Double> tailMap(K fromKey, boolean inclusive)
 	{
 		validateKey(fromKey);
-		return super.tailMap(sanitizeKey(fromKey), inclusive);
+		return new ProbMapView<K>(this, super.tailMap(sanitizeKey(fromKey), inclusive));
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>Removing entries, or setting their values, through the entry set
+	 * updates the running mass of the <code>ProbMap</code>. To make this possible,
+	 * each entry returned by the iterator is a small wrapper. Read-only loops which
+	 * do not need entries should use {@link #keySet()}, {@link #values()} or
+	 * {@link #forEach(BiConsumer) forEach}, which do not allocate per entry.
+	 */
+	@Override
+	public Set<Entry<K, Double>> entrySet()
+	{
+		return new ProbMapView.EntrySet<K>(this, super.entrySet());
+	}
+	
+	/**
+	 * Get the unwrapped entries of the underlying <code>TreeMap</code>, in ascending key order,
+	 * for read-only loops within the package. Unlike {@link #entrySet()}, iteration does not
+	 * allocate, and modifications are not tracked, so neither the set nor its entries may be modified.
+	 * @return		entry set of the underlying <code>TreeMap</code>
+	 */
+	Set<Entry<K, Double>> rawEntrySet()
+	{
+		return super.entrySet();
+	}
+	
+	/**
+	 * Get the unwrapped entries of the underlying <code>TreeMap</code>, in descending key order.
+	 * The same restrictions apply as for {@link #rawEntrySet()}.
+	 * @return		descending entry set of the underlying <code>TreeMap</code>
+	 */
+	Set<Entry<K, Double>> rawDescendingEntrySet()
+	{
+		return super.descendingMap().entrySet();
+	}
+	
+	@Override
+	public NavigableSet<K> keySet()
+	{
+		return navigableKeySet();
+	}
+	
+	@Override
+	public NavigableSet<K> navigableKeySet()
+	{
+		return new ProbMapView.KeySet<K>(this, this, super.entrySet());
+	}
+	
+	@Override
+	public NavigableSet<K> descendingKeySet()
+	{
+		return descendingMap().navigableKeySet();
+	}
+	
+	@Override
+	public Collection<Double> values()
+	{
+		return new ProbMapView.Values<K>(this, this, super.entrySet());
+	}
+	
+	@Override
+	public NavigableMap<K, Double> descendingMap()
+	{
+		return new ProbMapView<K>(this, super.descendingMap());
 	}
 	
 	@Override
@@ -201,7 +286,39 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 		
 		K sanitizedKey = sanitizeKey(key);
 		
-		return super.put(sanitizedKey, value);
+		Double oldValue = super.put(sanitizedKey, value);
+		changed(value - orZero(oldValue));
+		return oldValue;
+	}
+	
+	@Override
+	public void clear()
+	{
+		super.clear();
+		mass = 0.0;
+		changed(0.0);
+	}
+	
+	@Override
+	public Entry<K, Double> pollFirstEntry()
+	{
+		Entry<K, Double> entry = super.pollFirstEntry();
+		
+		if (entry != null)
+			changed(-entry.getValue());
+		
+		return entry;
+	}
+	
+	@Override
+	public Entry<K, Double> pollLastEntry()
+	{
+		Entry<K, Double> entry = super.pollLastEntry();
+		
+		if (entry != null)
+			changed(-entry.getValue());
+		
+		return entry;
 	}
 	
 	@Override
@@ -236,7 +353,12 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 		validateKey(keyK);
 		K sanitizedKey = sanitizeKey(keyK);
 		
-		return super.remove(sanitizedKey);
+		Double oldValue = super.remove(sanitizedKey);
+		
+		if (oldValue != null)
+			changed(-oldValue);
+		
+		return oldValue;
 	}
 	
 	@Override
@@ -247,13 +369,45 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 		validateKey(keyK);
 		K sanitizedKey = sanitizeKey(keyK);
 		
-		return super.remove(sanitizedKey, value);
+		Double oldValue = super.get(sanitizedKey);
+		
+		if (oldValue == null || !oldValue.equals(value))
+			return false;
+		
+		store(sanitizedKey, oldValue, null);
+		return true;
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 * <p>If <code>map</code> is a <code>ProbMap</code> of the same class, its keys are
+	 * already valid and sanitized, so they are inserted without being checked again.
+	 * If this <code>ProbMap</code> is also empty, the entries are loaded in linear time.
+	 */
 	@Override
 	public void putAll(Map<? extends K, ? extends Double> map)
 	{
-		map.forEach(putter);
+		if (map.getClass() != getClass())
+		{
+			map.forEach(putter);
+			return;
+		}
+		
+		@SuppressWarnings("unchecked")
+		ProbMap<K> pm = (ProbMap<K>) map;
+		
+		if (isEmpty() && pm.comparator() == comparator())
+		{
+			super.putAll(pm);
+			changed(pm.mass);
+			return;
+		}
+		
+		for (Entry<K, Double> entry : pm.rawEntrySet())
+		{
+			Double oldValue = super.put(entry.getKey(), entry.getValue());
+			changed(entry.getValue() - orZero(oldValue));
+		}
 	}
 	
 	public <T extends K> void putAll(Iterable<? extends Entry<? extends T, Double>> it)
@@ -272,7 +426,12 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 		
 		K sanitizedKey = sanitizeKey(key);
 		
-		return super.putIfAbsent(sanitizedKey, value);
+		Double oldValue = super.get(sanitizedKey);
+		
+		if (oldValue == null)
+			store(sanitizedKey, null, value);
+		
+		return oldValue;
 	}
 	
 	@Override
@@ -285,7 +444,12 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 		
 		K sanitizedKey = sanitizeKey(key);
 		
-		return super.replace(sanitizedKey, value);
+		Double oldValue = super.get(sanitizedKey);
+		
+		if (oldValue != null)
+			store(sanitizedKey, oldValue, value);
+		
+		return oldValue;
 	}
 	
 	@Override
@@ -298,21 +462,62 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 		
 		K sanitizedKey = sanitizeKey(key);
 		
-		return super.replace(sanitizedKey, oldValue, newValue);
+		Double currentValue = super.get(sanitizedKey);
+		
+		if (currentValue == null || !currentValue.equals(oldValue))
+			return false;
+		
+		store(sanitizedKey, currentValue, newValue);
+		return true;
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 * <p>The keys are already sanitized, so each entry is updated in place
+	 * without looking its key up again.
+	 */
 	@Override
 	public void replaceAll(BiFunction<? super K, ? super Double, ? extends Double> function)
 	{
-		for (Entry<K, Double> entry : this.entrySet())
+		double newMass = 0.0;
+		
+		for (Entry<K, Double> entry : super.entrySet())
 		{
-			final K key = entry.getKey();
-			final Double prob = entry.getValue();
+			Double newProb = function.apply(entry.getKey(), entry.getValue());
+			
+			if (newProb == null)
+			{
+				modified();
+				throw new NullPointerException("value cannot be null");
+			}
 			
-			Double newProb = function.apply(key, prob);
+			entry.setValue(newProb);
+			newMass += newProb;
+		}
+		
+		mass = newMass;
+		changed(0.0);
+	}
+	
+	/**
+	 * Replace each probability in the <code>ProbMap</code> with the result of applying
+	 * a function to it, updating each entry in place in a single pass.
+	 * @param function	rule for transforming probabilities
+	 */
+	public void transformValues(DoubleUnaryOperator function)
+	{
+		double newMass = 0.0;
+		
+		for (Entry<K, Double> entry : super.entrySet())
+		{
+			final double newProb = function.applyAsDouble(entry.getValue());
 			
-			this.put(key, newProb);
+			entry.setValue(newProb);
+			newMass += newProb;
 		}
+		
+		mass = newMass;
+		changed(0.0);
 	}
 	
 	@Override
@@ -321,7 +526,13 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 		validateKey(key);
 		K sanitizedKey = sanitizeKey(key);
 		
-		return super.merge(sanitizedKey, value, remappingFunction);
+		if (value == null)
+			throw new NullPointerException("value cannot be null");
+		
+		Double oldValue = super.get(sanitizedKey);
+		Double newValue = (oldValue == null) ? value : remappingFunction.apply(oldValue, value);
+		
+		return store(sanitizedKey, oldValue, newValue);
 	}
 	
 	/**
@@ -372,7 +583,9 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 		validateKey(key);
 		K sanitizedKey = sanitizeKey(key);
 		
-		return super.compute(sanitizedKey, remappingFunction);
+		Double oldValue = super.get(sanitizedKey);
+		
+		return store(sanitizedKey, oldValue, remappingFunction.apply(sanitizedKey, oldValue));
 	}
 	
 	@Override
@@ -381,7 +594,12 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 		validateKey(key);
 		K sanitizedKey = sanitizeKey(key);
 		
-		return super.computeIfAbsent(sanitizedKey, mappingFunction);
+		Double oldValue = super.get(sanitizedKey);
+		
+		if (oldValue != null)
+			return oldValue;
+		
+		return store(sanitizedKey, null, mappingFunction.apply(sanitizedKey));
 	}
 	
 	@Override
@@ -389,8 +607,13 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 	{
 		validateKey(key);
 		K sanitizedKey = sanitizeKey(key);
-
-		return super.computeIfPresent(sanitizedKey, remappingFunction);
+		
+		Double oldValue = super.get(sanitizedKey);
+		
+		if (oldValue == null)
+			return null;
+		
+		return store(sanitizedKey, oldValue, remappingFunction.apply(sanitizedKey, oldValue));
 	}
 	
 	@Override
@@ -399,7 +622,7 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 		StringBuffer s = new StringBuffer();
 		s.append("{");
 		
-		for (Entry<K, Double> entry : this.entrySet())
+		for (Entry<K, Double> entry : rawEntrySet())
 		{
 			if (s.length() != 1)
 				s.append(", ");
@@ -442,21 +665,52 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 	 */
 	public <T> ProbMap<T> morph(Function<? super K, ? extends T> f, Supplier<? extends ProbMap<T>> s)
 	{
-		ProbMap<T> newMap = s.get();
+		if (this.size() >= parallelThreshold)
+			return morphParallel(f, s);
 		
-		for (Entry<K, Double> entry : this.entrySet())
+		ProbMapBuilder<T> builder = new ProbMapBuilder<T>(s.get());
+		
+		for (Entry<K, Double> entry : rawEntrySet())
 		{
 			final K key = entry.getKey();
 			final Double prob = entry.getValue();
 			
 			T newKey = f.apply(key);
 			
-			newMap.merge(newKey, prob, sumMerger);
+			builder.add(newKey, prob);
 		}
 		
-		return newMap;
+		return builder.build();
 	}
 
+	/**
+	 * Map each key in the <code>ProbMap</code> to a key of a different type
+	 * in a new <code>ProbMap</code>, evaluating <code>f</code> in parallel.
+	 * <p>The keys are split into ranges which are morphed on the common
+	 * {@link java.util.concurrent.ForkJoinPool ForkJoinPool}, each into its own
+	 * {@link ProbMapBuilder}. The partial results are then merged in a tree reduction.
+	 * The <code>ProbMap</code> may not be modified until this method returns,
+	 * and <code>f</code> must be safe to call from several threads at once.
+	 * @param f		rule for mapping keys
+	 * @param s		{@link java.util.function.Supplier Supplier}
+	 * 				which can {@link java.util.function.Supplier#get get}()
+	 * 				an empty <code>ProbMap</code> with keys of the new type.
+	 * @return		<code>ProbMap</code> containing the morphed data,
+	 * 				created using <code>s.get()</code>
+	 * @param <T>	Type of the keys of the generated <code>ProbMap</code>
+	 * @see #morph(Function, Supplier)
+	 */
+	public <T> ProbMap<T> morphParallel(Function<? super K, ? extends T> f, Supplier<? extends ProbMap<T>> s)
+	{
+		List<Entry<K, Double>> entryList = new ArrayList<Entry<K, Double>>(rawEntrySet());
+		
+		BiConsumer<Entry<K, Double>, ProbMapBuilder<T>> accumulator = (entry, partBuilder) -> {
+			partBuilder.add(f.apply(entry.getKey()), entry.getValue());
+		};
+		
+		return ProbMapTask.reduce(entryList, accumulator, s.get());
+	}
+	
 	/**
 	 * Map each key-value pair in the <code>ProbMap</code>
 	 * to one or several key-value pairs in a new <code>ProbMap</code>,
@@ -487,27 +741,105 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 	 */
 	public <T> ProbMap<T> fork(Function<? super K, ? extends ProbMap<? extends T>> f, Supplier<? extends ProbMap<T>> s)
 	{
-		ProbMap<T> newMap = s.get();
+		if (this.size() >= parallelThreshold)
+			return forkParallel(f, s);
+		
+		ProbMapBuilder<T> builder = new ProbMapBuilder<T>(s.get());
 		
-		for (Entry<K, Double> myEntry : this.entrySet())
+		for (Entry<K, Double> myEntry : rawEntrySet())
 		{
 			final K myKey = myEntry.getKey();
-			final Double myProb = myEntry.getValue();
+			final double myProb = myEntry.getValue();
 			
 			ProbMap<? extends T> tempMap = f.apply(myKey);
 			
-			for (Entry<? extends T, Double> tEntry : tempMap.entrySet())
+			for (Entry<? extends T, Double> tEntry : tempMap.rawEntrySet())
 			{
 				final T tKey = tEntry.getKey();
-				final Double tProb = tEntry.getValue();
-				
-				Double newProb = myProb * tProb;
+				final double tProb = tEntry.getValue();
 				
-				newMap.merge(tKey, newProb, sumMerger);
+				builder.add(tKey, myProb * tProb);
 			}
 		}
 		
-		return newMap;
+		return builder.build();
+	}
+	
+	/**
+	 * Map each key-value pair in the <code>ProbMap</code> to a pair with a different
+	 * key type in a new <code>ProbMap</code>, evaluating <code>f</code> in parallel.
+	 * <p>The keys are split into ranges which are forked on the common
+	 * {@link java.util.concurrent.ForkJoinPool ForkJoinPool}, each into its own
+	 * {@link ProbMapBuilder}. The partial results are then merged in a tree reduction.
+	 * The <code>ProbMap</code> may not be modified until this method returns,
+	 * and <code>f</code> must be safe to call from several threads at once.
+	 * @param f		rule for mapping key-value pairs
+	 * @param s		{@link java.util.function.Supplier Supplier}
+	 * 				which can {@link java.util.function.Supplier#get get}()
+	 * 				an empty <code>ProbMap</code> with keys of the new type.
+	 * @return		<code>ProbMap</code> containing the forked data,
+	 * 				created using <code>s.get()</code>
+	 * @param <T>	Type of the keys in the new <code>ProbMap</code>
+	 * @see #fork(Function, Supplier)
+	 */
+	public <T> ProbMap<T> forkParallel(Function<? super K, ? extends ProbMap<? extends T>> f, Supplier<? extends ProbMap<T>> s)
+	{
+		List<Entry<K, Double>> entryList = new ArrayList<Entry<K, Double>>(rawEntrySet());
+		
+		BiConsumer<Entry<K, Double>, ProbMapBuilder<T>> accumulator = (myEntry, partBuilder) -> {
+			
+			final double myProb = myEntry.getValue();
+			
+			for (Entry<? extends T, Double> tEntry : f.apply(myEntry.getKey()).rawEntrySet())
+				partBuilder.add(tEntry.getKey(), myProb * tEntry.getValue());
+		};
+		
+		return ProbMapTask.reduce(entryList, accumulator, s.get());
+	}
+	
+	/**
+	 * Map each key in the <code>ProbMap</code> to a key of a different type in a new <code>ProbMap</code>,
+	 * where the new key depends only on a canonical sub-key of each key.
+	 * The new key is looked up in a {@link Memoizer}, so it is only calculated once for keys which share
+	 * a canonical sub-key. Passing the same <code>Memoizer</code> to several calls shares the results between them.
+	 * @param canonical		rule for finding the canonical sub-key of each key
+	 * @param memo			<code>Memoizer</code> caching the rule for mapping canonical sub-keys
+	 * @param s				{@link java.util.function.Supplier Supplier}
+	 * 						which can {@link java.util.function.Supplier#get get}()
+	 * 						an empty <code>ProbMap</code> with keys of the new type.
+	 * @return				<code>ProbMap</code> containing the morphed data,
+	 * 						created using <code>s.get()</code>
+	 * @param <C>			Type of the canonical sub-keys
+	 * @param <T>			Type of the keys of the generated <code>ProbMap</code>
+	 * @see #morph(Function, Supplier)
+	 */
+	public <C, T> ProbMap<T> morphMemoized(Function<? super K, ? extends C> canonical,
+			Memoizer<C, ? extends T> memo, Supplier<? extends ProbMap<T>> s)
+	{
+		return morph((key) -> memo.apply(canonical.apply(key)), s);
+	}
+	
+	/**
+	 * Map each key-value pair in the <code>ProbMap</code> to one or several key-value pairs
+	 * in a new <code>ProbMap</code>, where the pairs depend only on a canonical sub-key of each key.
+	 * The pairs are looked up in a {@link Memoizer}, so they are only calculated once for keys which share
+	 * a canonical sub-key. Passing the same <code>Memoizer</code> to several calls shares the results between them.
+	 * @param canonical		rule for finding the canonical sub-key of each key
+	 * @param memo			<code>Memoizer</code> caching the rule for mapping canonical sub-keys,
+	 * 						whose results are never modified
+	 * @param s				{@link java.util.function.Supplier Supplier}
+	 * 						which can {@link java.util.function.Supplier#get get}()
+	 * 						an empty <code>ProbMap</code> with keys of the new type.
+	 * @return				<code>ProbMap</code> containing the forked data,
+	 * 						created using <code>s.get()</code>
+	 * @param <C>			Type of the canonical sub-keys
+	 * @param <T>			Type of the keys in the new <code>ProbMap</code>
+	 * @see #fork(Function, Supplier)
+	 */
+	public <C, T> ProbMap<T> forkMemoized(Function<? super K, ? extends C> canonical,
+			Memoizer<C, ? extends ProbMap<? extends T>> memo, Supplier<? extends ProbMap<T>> s)
+	{
+		return fork((key) -> memo.apply(canonical.apply(key)), s);
 	}
 	
 	/**
@@ -550,38 +882,326 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 	 */
 	public <X, Y> ProbMap<Y> combine(BiFunction<? super K, ? super X, ? extends Y> f, ProbMap<? extends X> p, Supplier<? extends ProbMap<Y>> s)
 	{
-		ProbMap<Y> newMap = s.get();
+		if ((long) this.size() * p.size() >= parallelThreshold)
+			return combineParallel(f, p, s);
+		
+		ProbMapBuilder<Y> builder = new ProbMapBuilder<Y>(s.get());
 		
-		for (Entry<K, Double> myEntry : this.entrySet())
+		for (Entry<K, Double> myEntry : rawEntrySet())
 		{
 			final K myKey = myEntry.getKey();
-			final Double myProb = myEntry.getValue();
+			final double myProb = myEntry.getValue();
 			
-			for (Entry<? extends X, Double> pEntry : p.entrySet())
+			for (Entry<? extends X, Double> pEntry : p.rawEntrySet())
 			{
 				final X pKey = pEntry.getKey();
-				final Double pProb = pEntry.getValue();
+				final double pProb = pEntry.getValue();
 				
 				Y newKey = f.apply(myKey, pKey);
-				Double newProb = myProb * pProb;
 				
-				newMap.merge(newKey, newProb, sumMerger);
+				builder.add(newKey, myProb * pProb);
 			}
 		}
 		
-		return newMap;
+		return builder.build();
+	}
+	
+	/**
+	 * Combine each key in the <code>ProbMap</code>
+	 * with each key in a <code>ProbMap</code>, in parallel.
+	 * <p>The keys of the calling <code>ProbMap</code> are split into ranges which are combined
+	 * on the common {@link java.util.concurrent.ForkJoinPool ForkJoinPool}, each into its own
+	 * {@link ProbMapBuilder}. The partial results are then merged in a tree reduction.
+	 * Neither <code>ProbMap</code> may be modified until this method returns,
+	 * and <code>f</code> must be safe to call from several threads at once.
+	 * @param <X>	key type of the <code>ProbMap</code> argument
+	 * @param <Y>	key type of the resulting <code>ProbMap</code>
+	 * @param f		rule for combining keys
+	 * @param p		<code>ProbMap</code> to combine
+	 * @param s		{@link java.util.function.Supplier Supplier}
+	 * 				which can {@link java.util.function.Supplier#get get}()
+	 * 				an empty <code>ProbMap</code> with keys of the new type.
+	 * @return		<code>ProbMap</code> containing the combined data,
+	 * 				created using s.{@link java.util.function.Supplier#get get}
+	 * @see #combine(BiFunction, ProbMap, Supplier)
+	 */
+	public <X, Y> ProbMap<Y> combineParallel(BiFunction<? super K, ? super X, ? extends Y> f, ProbMap<? extends X> p, Supplier<? extends ProbMap<Y>> s)
+	{
+		List<Entry<K, Double>> entryList = new ArrayList<Entry<K, Double>>(rawEntrySet());
+		
+		BiConsumer<Entry<K, Double>, ProbMapBuilder<Y>> accumulator = (myEntry, partBuilder) -> {
+			
+			final K myKey = myEntry.getKey();
+			final double myProb = myEntry.getValue();
+			
+			for (Entry<? extends X, Double> pEntry : p.rawEntrySet())
+			{
+				Y newKey = f.apply(myKey, pEntry.getKey());
+				
+				partBuilder.add(newKey, myProb * pEntry.getValue());
+			}
+		};
+		
+		return ProbMapTask.reduce(entryList, accumulator, s.get());
+	}
+	
+	/**
+	 * Set the amount of work above which operations on <code>ProbMap</code>s run in parallel.
+	 * For {@link #combine(BiFunction, ProbMap, Supplier) combine}, this is compared to
+	 * the product of the sizes of the two <code>ProbMap</code>s. For
+	 * {@link #morph(Function, Supplier) morph} and {@link #fork(Function, Supplier) fork},
+	 * it is compared to the size of the calling <code>ProbMap</code>.
+	 * Functions passed to these operations must be safe to call from several threads at once
+	 * whenever the threshold can be reached.
+	 * @param threshold		minimum amount of work for parallel operation,
+	 * 						or <code>Long.MAX_VALUE</code> to disable parallel operation
+	 */
+	public static void setParallelThreshold(long threshold)
+	{
+		if (threshold < 1)
+			throw new IllegalArgumentException("Parallel threshold must be positive");
+		
+		parallelThreshold = threshold;
+	}
+	
+	/**
+	 * Get the amount of work above which operations on <code>ProbMap</code>s run in parallel
+	 * @return		minimum amount of work for parallel operation
+	 * @see #setParallelThreshold(long)
+	 */
+	public static long getParallelThreshold()
+	{
+		return parallelThreshold;
 	}
 	
 	/**
 	 * Throw an exception if the provided key is invalid
 	 * @param key	the key to validate
 	 */
-	private void validateKey(K key)
+	void validateKey(K key)
 	{
 		if (!keyIsValid(key))
 			throw new InvalidKeyException("Invalid key");
 	}
 	
+	/**
+	 * Convert, validate and sanitize a key, as every lookup in the <code>ProbMap</code> does
+	 * @param key	the key to check
+	 * @return		the sanitized key
+	 */
+	K checkedKey(Object key)
+	{
+		K keyK = makeKey(key);
+		
+		validateKey(keyK);
+		return sanitizeKey(keyK);
+	}
+	
+	/**
+	 * Load entries into an empty <code>ProbMap</code> in linear time.
+	 * The entries are not validated or sanitized.
+	 * @param sortedMap		entries to load, whose keys must be valid, sanitized and distinct,
+	 * 						ordered by a comparator equal to this <code>ProbMap</code>'s
+	 * @see ProbMapBuilder#build()
+	 */
+	void loadSorted(SortedMap<K, Double> sortedMap)
+	{
+		double loadedMass = 0.0;
+		
+		for (Double prob : sortedMap.values())
+			loadedMass += prob;
+		
+		super.putAll(sortedMap);
+		changed(loadedMass);
+	}
+	
+	/**
+	 * Take an immutable snapshot of the <code>ProbMap</code>, backed by sorted arrays.
+	 * The snapshot answers navigation queries by binary search, and may be shared
+	 * between threads without copying. Later changes to the <code>ProbMap</code>
+	 * do not affect the snapshot.
+	 * @return		{@link FrozenProbMap} holding a copy of the entries of the <code>ProbMap</code>
+	 */
+	public FrozenProbMap<K> freeze()
+	{
+		return new FrozenProbMap<K>(this);
+	}
+	
+	/**
+	 * Find the cumulative probability of a key.
+	 * For a normalised <code>ProbMap</code>, this is the probability
+	 * of observing a key no greater than <code>key</code>.
+	 * @param key	key to look up, which need not be present in the <code>ProbMap</code>
+	 * @return		sum of the probabilities of all keys less than or equal to <code>key</code>
+	 * @see #cdfIndex()
+	 */
+	public double cdf(K key)
+	{
+		return cdfIndex().cdf(key);
+	}
+	
+	/**
+	 * Find the tail probability of a key.
+	 * For a normalised <code>ProbMap</code>, this is the probability
+	 * of observing a key greater than <code>key</code>.
+	 * @param key	key to look up, which need not be present in the <code>ProbMap</code>
+	 * @return		sum of the probabilities of all keys greater than <code>key</code>
+	 * @see #cdfIndex()
+	 */
+	public double tailProbability(K key)
+	{
+		return cdfIndex().tailProbability(key);
+	}
+	
+	/**
+	 * Find a quantile of the <code>ProbMap</code>
+	 * @param p		fraction of the total probability, between zero and one inclusive
+	 * @return		the first entry which, when its probability is summed with the
+	 * 				probabilities of all preceding entries, results in a probability
+	 * 				greater than or equal to <code>p</code> times the sum of all the probabilities,
+	 * 				or <code>null</code> if the <code>ProbMap</code> is empty
+	 * @throws IllegalArgumentException if <code>p</code> lies outside the range zero to one
+	 * @see #cdfIndex()
+	 */
+	public Entry<K, Double> quantile(double p)
+	{
+		return cdfIndex().quantile(p);
+	}
+	
+	/**
+	 * Find the median average of the <code>ProbMap</code> in the order of its keys
+	 * @return		the first entry which, when its probability is summed with the
+	 * 				probabilities of all preceding entries, results in a probability
+	 * 				greater than or equal to half the sum of all the probabilities,
+	 * 				or <code>null</code> if the <code>ProbMap</code> is empty
+	 * @see #cdfIndex()
+	 */
+	public Entry<K, Double> median()
+	{
+		return cdfIndex().median();
+	}
+	
+	/**
+	 * Get the snapshot which answers cumulative probability queries on the <code>ProbMap</code>.
+	 * The snapshot is taken by {@link #freeze()} the first time it is needed, and is discarded
+	 * whenever the <code>ProbMap</code> is modified, so repeated queries on an unchanged
+	 * <code>ProbMap</code> take O(log n) time. Modifications made through views such as
+	 * {@link #entrySet()} and {@link #headMap(Object)}, including removals through their iterators
+	 * and changes to the values of their entries, discard the snapshot as well.
+	 * @return		snapshot of the <code>ProbMap</code> with a cumulative probability index
+	 */
+	protected FrozenProbMap<K> cdfIndex()
+	{
+		FrozenProbMap<K> index = frozenIndex;
+		
+		if (index == null)
+		{
+			index = freeze();
+			frozenIndex = index;
+		}
+		
+		return index;
+	}
+	
+	/**
+	 * Get the sum of all the probabilities in the <code>ProbMap</code>.
+	 * The sum is kept up to date by every method of the <code>ProbMap</code> which modifies it,
+	 * and of its views, such as {@link #entrySet()} and {@link #headMap(Object)},
+	 * their iterators and their entries, so no summation is required.
+	 * @return		total probability
+	 * @see #modified()
+	 */
+	public double getMass()
+	{
+		return mass;
+	}
+	
+	/**
+	 * Recalculate running totals from the entries, and discard cached results.
+	 * Every modification made through the <code>ProbMap</code> or its views is tracked as it is made,
+	 * so this is only needed to discard the rounding error which accumulates in the running
+	 * totals over a long series of modifications.
+	 */
+	protected void modified()
+	{
+		double newMass = 0.0;
+		
+		for (Double prob : super.values())
+			newMass += prob;
+		
+		mass = newMass;
+		frozenIndex = null;
+	}
+	
+	/**
+	 * Update running totals and discard cached results after a modification.
+	 * Also called by {@link ProbMapView} when the <code>ProbMap</code> is modified through a view.
+	 * @param massDelta		change in the sum of all the probabilities
+	 */
+	void changed(double massDelta)
+	{
+		mass += massDelta;
+		frozenIndex = null;
+		
+		assert massIsConsistent() : "Running mass " + mass + " does not match the probabilities";
+	}
+	
+	/**
+	 * Check the running mass against a fresh sum of the probabilities.
+	 * Every modification is checked this way when assertions are enabled.
+	 * @return		true if the running mass matches the sum to within rounding error,
+	 * 				or if the probabilities are not all finite
+	 */
+	private boolean massIsConsistent()
+	{
+		double sum = 0.0;
+		double scale = 1.0;
+		
+		for (Double prob : super.values())
+		{
+			sum += prob;
+			scale += Math.abs(prob);
+		}
+		
+		if (Double.isNaN(sum) || Double.isInfinite(scale))
+			return true;
+		
+		return Math.abs(mass - sum) <= 1e-9 * scale;
+	}
+	
+	/**
+	 * Set or remove the probability of a key in the underlying <code>TreeMap</code>,
+	 * applying a single change to the running totals.
+	 * <code>TreeMap</code> inherits several of its <code>Map</code> methods, which call back into the
+	 * overridden <code>put</code> and <code>remove</code>, so mutators are built on this instead.
+	 * @param sanitizedKey	key, already validated and sanitized
+	 * @param oldValue		probability currently held for the key, or <code>null</code> if it is absent
+	 * @param newValue		probability to hold for the key, or <code>null</code> to remove it
+	 * @return				<code>newValue</code>
+	 */
+	private Double store(K sanitizedKey, Double oldValue, Double newValue)
+	{
+		if (newValue != null)
+			super.put(sanitizedKey, newValue);
+		else if (oldValue != null)
+			super.remove(sanitizedKey);
+		else
+			return null;
+		
+		changed(orZero(newValue) - orZero(oldValue));
+		return newValue;
+	}
+	
+	/**
+	 * Unbox a probability which may be absent
+	 * @param prob		probability, or <code>null</code>
+	 * @return			the probability, or zero if it is <code>null</code>
+	 */
+	private static double orZero(Double prob)
+	{
+		return (prob == null) ? 0.0 : prob;
+	}
+	
 	/**
 	 * Get a {@link java.util.function.Supplier Supplier}
 	 * which {@link java.util.function.Supplier#get get}s
@@ -613,33 +1233,26 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 	/**
 	 * Normalise the probabilities in the <code>ProbMap</code> so that they sum to a given value.
 	 * This is equivalent to dividing each probability by the ratio of the normalising value
-	 * to the summ of all probabilities.
+	 * to the summ of all probabilities, which is taken from the running total {@link #getMass()}.
 	 * 
 	 * @param norm		normalising value. After returning, the values in the
 	 * 					<code>ProbMap</code> sum to this value
 	 */
 	public void normalise(double norm)
 	{
-		double probTotal = 0.0;
-		
-		for (Double d : values())
-			probTotal += d;
-		
-		final double probMod = norm / probTotal;
+		final double probMod = norm / mass;
 		
-		Consumer<Map.Entry<K, Double>> normalizer = new Consumer<Map.Entry<K, Double>>() {
-
-			@Override
-			public void accept(Entry<K, Double> entry)
-			{
-				double prob = entry.getValue();
-				prob *= probMod;
-				entry.setValue(prob);
-			}
-			
-		};
-		
-		entrySet().forEach(normalizer);
+		transformValues(prob -> prob * probMod);
+	}
+	
+	/**
+	 * Summarise the <code>ProbMap</code> in a single pass over its entries
+	 * @param function	rule for converting keys into <code>double</code>s
+	 * @return			mass, count, moments, extremes, mode and median of the <code>ProbMap</code>
+	 */
+	public ProbStats<K> getStats(ToDoubleFunction<? super K> function)
+	{
+		return ProbStats.of(this, function);
 	}
 	
 	/**
@@ -675,7 +1288,7 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 		
 		Double mean = 0.0;
 		
-		for (Entry<T, Double> entry : pm.entrySet())
+		for (Entry<T, Double> entry : pm.rawEntrySet())
 			mean += function.apply(entry.getKey()) * entry.getValue();
 		
 		return mean;
@@ -694,6 +1307,8 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 	
 	/**
 	 * Find the median average of a <code>ProbMap</code> when keys are ordered.
+	 * If <code>comp</code> orders keys as the <code>ProbMap</code> does,
+	 * the {@link #median()} is found using the <code>ProbMap</code>'s cumulative probability index.
 	 * @param pm	{@code ProbMap} for which the median is to be found
 	 * @param comp	rule for ordering keys
 	 * @return		the first key which, when its probability is summed with the
@@ -706,6 +1321,9 @@ public abstract class ProbMap<K> extends TreeMap<K, Double> implements Supplier<
 		if (pm.isEmpty())
 			return null;
 		
+		if (comp == pm.comparator() || (pm.comparator() == null && comp == Comparator.naturalOrder()))
+			return pm.median();
+		
 		List<Entry<T, Double>> entryList = new ArrayList<Entry<T, Double>>(pm.entrySet());
 		
 		Comparator<Entry<T, Double>> entryComp = Comparator.comparing((e)->{return e.getKey();}, comp);
@@ -0,0 +1,208 @@
+package diceTools;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Accumulates probabilities for a {@link ProbMap} in a hash table,
+ * sorting them only once when the <code>ProbMap</code> is {@link #build() built}.
+ * <p>Adding a probability costs a hash lookup rather than a descent of the
+ * <code>ProbMap</code>'s tree. Keys are validated and sanitized by the target
+ * <code>ProbMap</code> the first time they are seen, so keys which are already
+ * in their sanitized form are only validated and sanitized once.
+ * Keys which the target <code>ProbMap</code> orders as equal but which are not
+ * {@link Object#equals(Object) equal} are summed when the <code>ProbMap</code> is built,
+ * keeping the first such key added, as {@link ProbMap#merge(Object, Double) merge} would.
+ * <p>A <em>trusted</em> <code>ProbMapBuilder</code> skips validation and sanitization
+ * altogether, for internal operations which already produce valid, sanitized keys.
+ * <p>Keys must implement {@link Object#hashCode() hashCode} consistently with
+ * {@link Object#equals(Object) equals}.
+ *
+ * @param <K>	type of the keys
+ *
+ * @author kieran
+ */
+public class ProbMapBuilder<K>
+{
+	/**
+	 * <code>ProbMap</code> into which the accumulated probabilities are built,
+	 * and which validates and sanitizes keys
+	 */
+	private final ProbMap<K> target;
+	
+	/**
+	 * Accumulated probability of each sanitized key, in the order the keys were first added
+	 */
+	private final Map<K, Mass> masses = new LinkedHashMap<K, Mass>();
+	
+	/**
+	 * Whether keys are added without being validated or sanitized
+	 */
+	private final boolean trusted;
+	
+	/**
+	 * Constructs a <code>ProbMapBuilder</code> which builds into a given <code>ProbMap</code>
+	 * @param target	<code>ProbMap</code> into which probabilities are built
+	 */
+	public ProbMapBuilder(ProbMap<K> target)
+	{
+		this(target, false);
+	}
+	
+	/**
+	 * Constructs a <code>ProbMapBuilder</code> which builds into a given <code>ProbMap</code>,
+	 * optionally trusting the keys it is given
+	 * @param target	<code>ProbMap</code> into which probabilities are built
+	 * @param trusted	<code>true</code> if every key added is already valid and sanitized,
+	 * 					so need not be checked by the target <code>ProbMap</code>
+	 */
+	public ProbMapBuilder(ProbMap<K> target, boolean trusted)
+	{
+		this.target = target;
+		this.trusted = trusted;
+	}
+	
+	/**
+	 * Add a probability to the probability accumulated for a key
+	 * @param key		key with which the probability is associated
+	 * @param prob		probability to add
+	 * @throws ProbMap.InvalidKeyException if the target <code>ProbMap</code> rejects the key
+	 */
+	public void add(K key, double prob)
+	{
+		Mass mass = masses.get(key);
+		
+		if (mass == null && trusted)
+		{
+			mass = new Mass();
+			masses.put(key, mass);
+		}
+		else if (mass == null)
+		{
+			target.validateKey(key);
+			K sanitizedKey = target.sanitizeKey(key);
+			
+			if (sanitizedKey != key)
+				mass = masses.get(sanitizedKey);
+			
+			if (mass == null)
+			{
+				mass = new Mass();
+				masses.put(sanitizedKey, mass);
+			}
+		}
+		
+		mass.value += prob;
+	}
+	
+	/**
+	 * Add the probabilities accumulated by another <code>ProbMapBuilder</code>
+	 * for the same kind of <code>ProbMap</code>
+	 * @param builder	<code>ProbMapBuilder</code> whose probabilities are added
+	 */
+	public void addAll(ProbMapBuilder<? extends K> builder)
+	{
+		for (Entry<? extends K, Mass> entry : builder.masses.entrySet())
+		{
+			Mass mass = masses.get(entry.getKey());
+			
+			if (mass == null)
+			{
+				mass = new Mass();
+				masses.put(entry.getKey(), mass);
+			}
+			
+			mass.value += entry.getValue().value;
+		}
+	}
+	
+	/**
+	 * Get the number of distinct keys added so far.
+	 * Keys which are ordered as equal but are not equal are counted separately.
+	 * @return		number of distinct keys
+	 */
+	public int size()
+	{
+		return masses.size();
+	}
+	
+	/**
+	 * Sort the accumulated probabilities and load them into the target <code>ProbMap</code>.
+	 * <p>If the target is empty, the sorted keys are loaded in linear time.
+	 * Otherwise they are {@link ProbMap#merge(Object, Double) merge}d into it.
+	 * The <code>ProbMapBuilder</code> should not be used afterwards.
+	 * @return		the target <code>ProbMap</code>
+	 */
+	public ProbMap<K> build()
+	{
+		if (!target.isEmpty())
+		{
+			for (Entry<K, Mass> entry : masses.entrySet())
+				target.merge(entry.getKey(), entry.getValue().value);
+			
+			return target;
+		}
+		
+		final Comparator<? super K> comp = keyComparator();
+		
+		List<Entry<K, Mass>> entryList = new ArrayList<Entry<K, Mass>>(masses.entrySet());
+		entryList.sort(Entry.comparingByKey(comp));
+		
+		@SuppressWarnings("unchecked")
+		final K[] keys = (K[]) new Object[entryList.size()];
+		final double[] probs = new double[entryList.size()];
+		int count = 0;
+		
+		for (Entry<K, Mass> entry : entryList)
+		{
+			if (count > 0 && comp.compare(keys[count - 1], entry.getKey()) == 0)
+			{
+				probs[count - 1] += entry.getValue().value;
+				continue;
+			}
+			
+			keys[count] = entry.getKey();
+			probs[count] = entry.getValue().value;
+			count++;
+		}
+		
+		target.loadSorted(new FrozenProbMap<K>(keys, probs, count, target));
+		
+		return target;
+	}
+	
+	/**
+	 * Get the rule by which the target <code>ProbMap</code> orders its keys
+	 * @return		the target's comparator, or the natural ordering if it has none
+	 */
+	private Comparator<? super K> keyComparator()
+	{
+		Comparator<? super K> comp = target.comparator();
+		
+		if (comp != null)
+			return comp;
+		
+		return (a, b) -> {
+			@SuppressWarnings("unchecked")
+			Comparable<? super K> compA = (Comparable<? super K>) a;
+			return compA.compareTo(b);
+		};
+	}
+	
+	/**
+	 * Mutable probability accumulated for a key
+	 *
+	 * @author kieran
+	 */
+	private static final class Mass
+	{
+		/**
+		 * Probability accumulated so far
+		 */
+		private double value;
+	}
+}
@@ -0,0 +1,139 @@
+package diceTools;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+
+/**
+ * {@link java.util.concurrent.RecursiveTask RecursiveTask} which accumulates
+ * a <code>List</code> of items into {@link ProbMapBuilder}s in parallel.
+ * <p>The <code>List</code> is split into ranges, each of which is accumulated
+ * into its own partial <code>ProbMapBuilder</code>. The partial <code>ProbMapBuilder</code>s are
+ * then merged pairwise, with the smaller merged into the larger, forming a tree reduction.
+ *
+ * @param <E>	type of the items to accumulate
+ * @param <T>	type of the keys of the resulting {@link ProbMap}
+ *
+ * @author kieran
+ */
+@SuppressWarnings("serial")
+class ProbMapTask<E, T> extends RecursiveTask<ProbMapBuilder<T>>
+{
+	/**
+	 * Number of ranges created per thread, so that work stealing can balance uneven ranges
+	 */
+	private static final int RANGES_PER_THREAD = 4;
+	
+	/**
+	 * Items to accumulate
+	 */
+	private final List<? extends E> items;
+	
+	/**
+	 * Index of the first item accumulated by this task
+	 */
+	private final int from;
+	
+	/**
+	 * Index after the last item accumulated by this task
+	 */
+	private final int to;
+	
+	/**
+	 * Maximum number of items accumulated without splitting the task
+	 */
+	private final int grain;
+	
+	/**
+	 * Rule for accumulating an item into a partial <code>ProbMapBuilder</code>
+	 */
+	private final BiConsumer<? super E, ? super ProbMapBuilder<T>> accumulator;
+	
+	/**
+	 * <code>ProbMap</code> which validates and sanitizes keys for the partial <code>ProbMapBuilder</code>s
+	 */
+	private final ProbMap<T> target;
+	
+	/**
+	 * Constructs a <code>ProbMapTask</code> to accumulate a range of items
+	 * @param items			items to accumulate
+	 * @param from			index of the first item to accumulate
+	 * @param to			index after the last item to accumulate
+	 * @param grain			maximum number of items accumulated without splitting the task
+	 * @param accumulator	rule for accumulating an item into a partial <code>ProbMapBuilder</code>
+	 * @param target		<code>ProbMap</code> which validates and sanitizes keys
+	 */
+	private ProbMapTask(List<? extends E> items, int from, int to, int grain,
+			BiConsumer<? super E, ? super ProbMapBuilder<T>> accumulator, ProbMap<T> target)
+	{
+		this.items = items;
+		this.from = from;
+		this.to = to;
+		this.grain = grain;
+		this.accumulator = accumulator;
+		this.target = target;
+	}
+	
+	/**
+	 * Accumulate each item in a <code>List</code> in parallel on the common
+	 * {@link java.util.concurrent.ForkJoinPool ForkJoinPool}, then build the results into a target.
+	 * <p>The accumulator is called concurrently from several threads,
+	 * each time with a different partial <code>ProbMapBuilder</code>.
+	 * @param <E>			type of the items to accumulate
+	 * @param <T>			type of the keys of the resulting <code>ProbMap</code>
+	 * @param items			items to accumulate
+	 * @param accumulator	rule for accumulating an item into a partial <code>ProbMapBuilder</code>
+	 * @param target		<code>ProbMap</code> into which the accumulated results are built,
+	 * 						and which validates and sanitizes keys for the partial <code>ProbMapBuilder</code>s
+	 * @return				<code>target</code>
+	 */
+	static <E, T> ProbMap<T> reduce(List<? extends E> items,
+			BiConsumer<? super E, ? super ProbMapBuilder<T>> accumulator, ProbMap<T> target)
+	{
+		if (items.isEmpty())
+			return target;
+		
+		final int ranges = ForkJoinPool.getCommonPoolParallelism() * RANGES_PER_THREAD;
+		final int grain = Math.max(1, items.size() / ranges);
+		
+		ProbMapBuilder<T> result = ForkJoinPool.commonPool().invoke(
+				new ProbMapTask<E, T>(items, 0, items.size(), grain, accumulator, target));
+		
+		return result.build();
+	}
+	
+	@Override
+	protected ProbMapBuilder<T> compute()
+	{
+		if (to - from <= grain)
+		{
+			ProbMapBuilder<T> partial = new ProbMapBuilder<T>(target);
+			
+			for (int i = from; i < to; i++)
+				accumulator.accept(items.get(i), partial);
+			
+			return partial;
+		}
+		
+		final int mid = (from + to) >>> 1;
+		
+		ProbMapTask<E, T> left = new ProbMapTask<E, T>(items, from, mid, grain, accumulator, target);
+		ProbMapTask<E, T> right = new ProbMapTask<E, T>(items, mid, to, grain, accumulator, target);
+		
+		left.fork();
+		ProbMapBuilder<T> rightBuilder = right.compute();
+		ProbMapBuilder<T> leftBuilder = left.join();
+		
+		if (leftBuilder.size() >= rightBuilder.size())
+		{
+			leftBuilder.addAll(rightBuilder);
+			return leftBuilder;
+		}
+		else
+		{
+			rightBuilder.addAll(leftBuilder);
+			return rightBuilder;
+		}
+	}
+}
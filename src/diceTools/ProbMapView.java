@@ -0,0 +1,503 @@
+package diceTools;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * View over a range of a {@link ProbMap}, such as a sub-map or the descending map.
+ * <p><code>TreeMap</code>'s own views remove entries and set their values without calling
+ * any method which a <code>ProbMap</code> can override. <code>ProbMapView</code> wraps them,
+ * along with their entry sets, key sets and value collections, and reports every such
+ * modification to the <code>ProbMap</code> which owns them, so its running mass
+ * and cumulative probability index stay up to date.
+ * <p>Keys passed to a <code>ProbMapView</code> are validated and sanitized
+ * in the same way as the owning <code>ProbMap</code>.
+ *
+ * @param <K>	type of the keys
+ *
+ * @author kieran
+ */
+final class ProbMapView<K> extends AbstractMap<K, Double> implements NavigableMap<K, Double>
+{
+	/**
+	 * <code>ProbMap</code> whose entries are viewed
+	 */
+	private final ProbMap<K> owner;
+	
+	/**
+	 * <code>TreeMap</code> view which is wrapped
+	 */
+	private final NavigableMap<K, Double> backing;
+	
+	/**
+	 * Constructs a <code>ProbMapView</code> wrapping one of the <code>TreeMap</code> views of a <code>ProbMap</code>.
+	 * @param owner		<code>ProbMap</code> whose entries are viewed
+	 * @param backing	view of <code>owner</code> to wrap
+	 */
+	ProbMapView(ProbMap<K> owner, NavigableMap<K, Double> backing)
+	{
+		this.owner = owner;
+		this.backing = backing;
+	}
+	
+	@Override public int size()									{return backing.size();}
+	@Override public boolean isEmpty()							{return backing.isEmpty();}
+	@Override public Comparator<? super K> comparator()			{return backing.comparator();}
+	@Override public K firstKey()								{return backing.firstKey();}
+	@Override public K lastKey()								{return backing.lastKey();}
+	@Override public Entry<K, Double> firstEntry()				{return backing.firstEntry();}
+	@Override public Entry<K, Double> lastEntry()				{return backing.lastEntry();}
+	@Override public boolean containsKey(Object key)			{return backing.containsKey(owner.checkedKey(key));}
+	@Override public Double get(Object key)						{return backing.get(owner.checkedKey(key));}
+	@Override public Entry<K, Double> lowerEntry(K key)			{return backing.lowerEntry(owner.checkedKey(key));}
+	@Override public Entry<K, Double> floorEntry(K key)			{return backing.floorEntry(owner.checkedKey(key));}
+	@Override public Entry<K, Double> ceilingEntry(K key)		{return backing.ceilingEntry(owner.checkedKey(key));}
+	@Override public Entry<K, Double> higherEntry(K key)		{return backing.higherEntry(owner.checkedKey(key));}
+	@Override public K lowerKey(K key)							{return backing.lowerKey(owner.checkedKey(key));}
+	@Override public K floorKey(K key)							{return backing.floorKey(owner.checkedKey(key));}
+	@Override public K ceilingKey(K key)						{return backing.ceilingKey(owner.checkedKey(key));}
+	@Override public K higherKey(K key)							{return backing.higherKey(owner.checkedKey(key));}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p><code>TreeMap</code> views pass insertions on to the <code>ProbMap</code>'s
+	 * own {@link ProbMap#put(Object, Double) put}, which keeps the running mass.
+	 */
+	@Override
+	public Double put(K key, Double value)
+	{
+		if (value == null)
+			throw new NullPointerException("value cannot be null");
+		
+		return backing.put(owner.checkedKey(key), value);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p><code>TreeMap</code> views pass removals by key on to the <code>ProbMap</code>'s
+	 * own {@link ProbMap#remove(Object) remove}, which keeps the running mass.
+	 */
+	@Override
+	public Double remove(Object key)
+	{
+		return backing.remove(owner.checkedKey(key));
+	}
+	
+	@Override
+	public Entry<K, Double> pollFirstEntry()
+	{
+		return polled(backing.pollFirstEntry());
+	}
+	
+	@Override
+	public Entry<K, Double> pollLastEntry()
+	{
+		return polled(backing.pollLastEntry());
+	}
+	
+	/**
+	 * Report an entry polled from the wrapped view to the owning <code>ProbMap</code>
+	 * @param entry		polled entry, or <code>null</code> if the view was empty
+	 * @return			<code>entry</code>
+	 */
+	private Entry<K, Double> polled(Entry<K, Double> entry)
+	{
+		if (entry != null)
+			owner.changed(-entry.getValue());
+		
+		return entry;
+	}
+	
+	@Override
+	public Set<Entry<K, Double>> entrySet()
+	{
+		return new EntrySet<K>(owner, backing.entrySet());
+	}
+	
+	@Override
+	public NavigableSet<K> keySet()
+	{
+		return navigableKeySet();
+	}
+	
+	@Override
+	public NavigableSet<K> navigableKeySet()
+	{
+		return new KeySet<K>(owner, this, backing.entrySet());
+	}
+	
+	@Override
+	public NavigableSet<K> descendingKeySet()
+	{
+		return descendingMap().navigableKeySet();
+	}
+	
+	@Override
+	public Collection<Double> values()
+	{
+		return new Values<K>(owner, this, backing.entrySet());
+	}
+	
+	@Override
+	public NavigableMap<K, Double> descendingMap()
+	{
+		return new ProbMapView<K>(owner, backing.descendingMap());
+	}
+	
+	@Override
+	public NavigableMap<K, Double> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive)
+	{
+		return new ProbMapView<K>(owner, backing.subMap(owner.checkedKey(fromKey), fromInclusive, owner.checkedKey(toKey), toInclusive));
+	}
+	
+	@Override
+	public NavigableMap<K, Double> headMap(K toKey, boolean inclusive)
+	{
+		return new ProbMapView<K>(owner, backing.headMap(owner.checkedKey(toKey), inclusive));
+	}
+	
+	@Override
+	public NavigableMap<K, Double> tailMap(K fromKey, boolean inclusive)
+	{
+		return new ProbMapView<K>(owner, backing.tailMap(owner.checkedKey(fromKey), inclusive));
+	}
+	
+	@Override public SortedMap<K, Double> subMap(K fromKey, K toKey)	{return subMap(fromKey, true, toKey, false);}
+	@Override public SortedMap<K, Double> headMap(K toKey)			{return headMap(toKey, false);}
+	@Override public SortedMap<K, Double> tailMap(K fromKey)			{return tailMap(fromKey, true);}
+	
+	/**
+	 * Entry set which reports removals, and changes to the values of its entries,
+	 * to the <code>ProbMap</code> which owns it.
+	 * <p>Each entry returned by the iterator is wrapped, so that its <code>setValue</code>
+	 * can be reported. Read-only loops which do not need entries should iterate over
+	 * the key set or the values, or use <code>forEach</code>, none of which allocate per entry.
+	 * <p><code>clear</code> removes the entries one by one through the iterator,
+	 * since <code>TreeMap</code> entry sets differ in whether their own <code>clear</code>
+	 * is seen by the <code>ProbMap</code>.
+	 *
+	 * @param <K>	type of the keys
+	 *
+	 * @author kieran
+	 */
+	static final class EntrySet<K> extends AbstractSet<Entry<K, Double>>
+	{
+		/**
+		 * <code>ProbMap</code> which owns the entries
+		 */
+		private final ProbMap<K> owner;
+		
+		/**
+		 * <code>TreeMap</code> entry set which is wrapped
+		 */
+		private final Set<Entry<K, Double>> backing;
+		
+		EntrySet(ProbMap<K> owner, Set<Entry<K, Double>> backing)
+		{
+			this.owner = owner;
+			this.backing = backing;
+		}
+		
+		@Override public int size()					{return backing.size();}
+		@Override public boolean contains(Object o)	{return backing.contains(o);}
+		
+		@Override
+		public Iterator<Entry<K, Double>> iterator()
+		{
+			return new TrackedIterator<K, Entry<K, Double>>(owner, backing.iterator())
+			{
+				@Override
+				Entry<K, Double> itemOf(Entry<K, Double> entry)
+				{
+					return new ViewEntry<K>(owner, entry);
+				}
+			};
+		}
+		
+		@Override
+		public boolean remove(Object o)
+		{
+			if (!(o instanceof Entry))
+				return false;
+			
+			final Object value = ((Entry<?, ?>) o).getValue();
+			
+			if (!backing.remove(o))
+				return false;
+			
+			owner.changed(-(Double) value);
+			return true;
+		}
+	}
+	
+	/**
+	 * Entry which reports changes to its value to the <code>ProbMap</code> which owns it
+	 *
+	 * @param <K>	type of the key
+	 *
+	 * @author kieran
+	 */
+	private static final class ViewEntry<K> implements Entry<K, Double>
+	{
+		/**
+		 * <code>ProbMap</code> which owns the entry
+		 */
+		private final ProbMap<K> owner;
+		
+		/**
+		 * <code>TreeMap</code> entry which is wrapped
+		 */
+		private final Entry<K, Double> entry;
+		
+		ViewEntry(ProbMap<K> owner, Entry<K, Double> entry)
+		{
+			this.owner = owner;
+			this.entry = entry;
+		}
+		
+		@Override public K getKey()					{return entry.getKey();}
+		@Override public Double getValue()			{return entry.getValue();}
+		@Override public boolean equals(Object o)	{return entry.equals(o);}
+		@Override public int hashCode()				{return entry.hashCode();}
+		@Override public String toString()			{return entry.toString();}
+		
+		@Override
+		public Double setValue(Double value)
+		{
+			if (value == null)
+				throw new NullPointerException("value cannot be null");
+			
+			final Double oldValue = entry.setValue(value);
+			owner.changed(value - oldValue);
+			return oldValue;
+		}
+	}
+	
+	/**
+	 * Key set of a <code>ProbMap</code> or one of its views.
+	 * Iteration walks the <code>TreeMap</code> entries directly, without wrapping them,
+	 * and all other modifications are made through the map.
+	 *
+	 * @param <K>	type of the keys
+	 *
+	 * @author kieran
+	 */
+	static final class KeySet<K> extends AbstractSet<K> implements NavigableSet<K>
+	{
+		/**
+		 * <code>ProbMap</code> which owns the keys
+		 */
+		private final ProbMap<K> owner;
+		
+		/**
+		 * Map whose keys are viewed
+		 */
+		private final NavigableMap<K, Double> map;
+		
+		/**
+		 * <code>TreeMap</code> entry set of <code>map</code>
+		 */
+		private final Set<Entry<K, Double>> entries;
+		
+		KeySet(ProbMap<K> owner, NavigableMap<K, Double> map, Set<Entry<K, Double>> entries)
+		{
+			this.owner = owner;
+			this.map = map;
+			this.entries = entries;
+		}
+		
+		@Override
+		public Iterator<K> iterator()
+		{
+			return new TrackedIterator<K, K>(owner, entries.iterator())
+			{
+				@Override
+				K itemOf(Entry<K, Double> entry)
+				{
+					return entry.getKey();
+				}
+			};
+		}
+		
+		@Override public int size()								{return map.size();}
+		@Override public boolean contains(Object o)				{return map.containsKey(o);}
+		@Override public boolean remove(Object o)				{return map.remove(o) != null;}
+		@Override public void clear()							{map.clear();}
+		@Override public Comparator<? super K> comparator()		{return map.comparator();}
+		@Override public K first()								{return map.firstKey();}
+		@Override public K last()								{return map.lastKey();}
+		@Override public K lower(K e)							{return map.lowerKey(e);}
+		@Override public K floor(K e)							{return map.floorKey(e);}
+		@Override public K ceiling(K e)							{return map.ceilingKey(e);}
+		@Override public K higher(K e)							{return map.higherKey(e);}
+		@Override public NavigableSet<K> descendingSet()		{return map.descendingKeySet();}
+		@Override public Iterator<K> descendingIterator()		{return descendingSet().iterator();}
+		@Override public SortedSet<K> headSet(K toElement)		{return headSet(toElement, false);}
+		@Override public SortedSet<K> tailSet(K fromElement)	{return tailSet(fromElement, true);}
+		
+		@Override
+		public K pollFirst()
+		{
+			Entry<K, Double> entry = map.pollFirstEntry();
+			return (entry == null) ? null : entry.getKey();
+		}
+		
+		@Override
+		public K pollLast()
+		{
+			Entry<K, Double> entry = map.pollLastEntry();
+			return (entry == null) ? null : entry.getKey();
+		}
+		
+		@Override
+		public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement, boolean toInclusive)
+		{
+			return map.subMap(fromElement, fromInclusive, toElement, toInclusive).navigableKeySet();
+		}
+		
+		@Override
+		public NavigableSet<K> headSet(K toElement, boolean inclusive)
+		{
+			return map.headMap(toElement, inclusive).navigableKeySet();
+		}
+		
+		@Override
+		public NavigableSet<K> tailSet(K fromElement, boolean inclusive)
+		{
+			return map.tailMap(fromElement, inclusive).navigableKeySet();
+		}
+		
+		@Override
+		public SortedSet<K> subSet(K fromElement, K toElement)
+		{
+			return subSet(fromElement, true, toElement, false);
+		}
+	}
+	
+	/**
+	 * Value collection of a <code>ProbMap</code> or one of its views.
+	 * Iteration walks the <code>TreeMap</code> entries directly, without wrapping them,
+	 * and all other modifications are made through the map.
+	 *
+	 * @param <K>	type of the keys
+	 *
+	 * @author kieran
+	 */
+	static final class Values<K> extends AbstractCollection<Double>
+	{
+		/**
+		 * <code>ProbMap</code> which owns the values
+		 */
+		private final ProbMap<K> owner;
+		
+		/**
+		 * Map whose values are viewed
+		 */
+		private final NavigableMap<K, Double> map;
+		
+		/**
+		 * <code>TreeMap</code> entry set of <code>map</code>
+		 */
+		private final Set<Entry<K, Double>> entries;
+		
+		Values(ProbMap<K> owner, NavigableMap<K, Double> map, Set<Entry<K, Double>> entries)
+		{
+			this.owner = owner;
+			this.map = map;
+			this.entries = entries;
+		}
+		
+		@Override
+		public Iterator<Double> iterator()
+		{
+			return new TrackedIterator<K, Double>(owner, entries.iterator())
+			{
+				@Override
+				Double itemOf(Entry<K, Double> entry)
+				{
+					return entry.getValue();
+				}
+			};
+		}
+		
+		@Override public int size()		{return map.size();}
+		@Override public void clear()	{map.clear();}
+	}
+	
+	/**
+	 * Iterator over <code>TreeMap</code> entries which reports removals
+	 * to the <code>ProbMap</code> which owns them
+	 *
+	 * @param <K>	type of the keys
+	 * @param <T>	type of the items returned
+	 *
+	 * @author kieran
+	 */
+	private abstract static class TrackedIterator<K, T> implements Iterator<T>
+	{
+		/**
+		 * <code>ProbMap</code> which owns the entries
+		 */
+		private final ProbMap<K> owner;
+		
+		/**
+		 * <code>TreeMap</code> iterator which is wrapped
+		 */
+		private final Iterator<Entry<K, Double>> iter;
+		
+		/**
+		 * Entry most recently returned by the wrapped iterator,
+		 * or <code>null</code> if it has been removed
+		 */
+		private Entry<K, Double> last = null;
+		
+		TrackedIterator(ProbMap<K> owner, Iterator<Entry<K, Double>> iter)
+		{
+			this.owner = owner;
+			this.iter = iter;
+		}
+		
+		/**
+		 * Get the item to return for an entry
+		 * @param entry		<code>TreeMap</code> entry which the wrapped iterator returned
+		 * @return			item to return from {@link #next()}
+		 */
+		abstract T itemOf(Entry<K, Double> entry);
+		
+		@Override
+		public boolean hasNext()
+		{
+			return iter.hasNext();
+		}
+		
+		@Override
+		public T next()
+		{
+			last = iter.next();
+			return itemOf(last);
+		}
+		
+		@Override
+		public void remove()
+		{
+			if (last == null)
+				throw new IllegalStateException();
+			
+			// TreeMap may reuse the removed entry for its successor, so read the value first
+			final double prob = last.getValue();
+			
+			iter.remove();
+			last = null;
+			owner.changed(-prob);
+		}
+	}
+}
@@ -0,0 +1,278 @@
+package diceTools;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Map.Entry;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Summary statistics of a {@link ProbMap}, all computed in a single pass over its entries.
+ * <p>Keys are converted to <code>double</code>s by a given rule for the moments, minimum and maximum.
+ * The mode and median are entries of the <code>ProbMap</code>, with the median found in the
+ * <code>ProbMap</code>'s own key order using its running {@link ProbMap#getMass() mass}.
+ * Moments are accumulated about the first key, rather than zero, to limit cancellation error.
+ * Probabilities are treated as weights and are not assumed to sum to unity.
+ *
+ * @param <K>	type of the keys
+ *
+ * @author kieran
+ */
+public final class ProbStats<K>
+{
+	/**
+	 * Sum of all the probabilities
+	 */
+	private final double mass;
+	
+	/**
+	 * Number of keys
+	 */
+	private final int count;
+	
+	/**
+	 * Probability-weighted mean of the keys
+	 */
+	private final double mean;
+	
+	/**
+	 * Probability-weighted variance of the keys
+	 */
+	private final double variance;
+	
+	/**
+	 * Probability-weighted skewness of the keys
+	 */
+	private final double skewness;
+	
+	/**
+	 * Smallest key, as a <code>double</code>
+	 */
+	private final double min;
+	
+	/**
+	 * Largest key, as a <code>double</code>
+	 */
+	private final double max;
+	
+	/**
+	 * Entry with the highest probability
+	 */
+	private final Entry<K, Double> mode;
+	
+	/**
+	 * Median entry in the key order of the <code>ProbMap</code>
+	 */
+	private final Entry<K, Double> median;
+	
+	/**
+	 * Constructs <code>ProbStats</code> by summarising a <code>ProbMap</code>
+	 * @param pm		<code>ProbMap</code> to summarise
+	 * @param function	rule for converting keys into <code>double</code>s
+	 */
+	private ProbStats(ProbMap<K> pm, ToDoubleFunction<? super K> function)
+	{
+		final double medianTarget = pm.getMass() / 2;
+		
+		double probTotal = 0.0;
+		double origin = 0.0;
+		double sum1 = 0.0;
+		double sum2 = 0.0;
+		double sum3 = 0.0;
+		double minKey = Double.NaN;
+		double maxKey = Double.NaN;
+		Entry<K, Double> modeEntry = null;
+		Entry<K, Double> medianEntry = null;
+		int n = 0;
+		
+		for (Entry<K, Double> entry : pm.rawEntrySet())
+		{
+			final double p = entry.getValue();
+			final double x = function.applyAsDouble(entry.getKey());
+			
+			if (n++ == 0)
+			{
+				origin = x;
+				minKey = x;
+				maxKey = x;
+			}
+			else
+			{
+				minKey = Math.min(minKey, x);
+				maxKey = Math.max(maxKey, x);
+			}
+			
+			final double d = x - origin;
+			final double pd = p * d;
+			sum1 += pd;
+			sum2 += pd * d;
+			sum3 += pd * d * d;
+			probTotal += p;
+			
+			if (modeEntry == null || p > modeEntry.getValue())
+				modeEntry = entry;
+			
+			if (medianEntry == null && probTotal >= medianTarget)
+				medianEntry = entry;
+		}
+		
+		//Only reached without a median if rounding prevents the target being met
+		if (medianEntry == null && n > 0)
+			medianEntry = pm.lastEntry();
+		
+		final double m1 = sum1 / probTotal;
+		final double m2 = sum2 / probTotal;
+		final double m3 = sum3 / probTotal;
+		
+		this.mass = probTotal;
+		this.count = n;
+		this.mean = (n == 0) ? Double.NaN : origin + m1;
+		this.variance = (n == 0) ? Double.NaN : Math.max(0.0, m2 - m1 * m1);
+		this.skewness = (m3 - 3 * m1 * m2 + 2 * m1 * m1 * m1) / Math.pow(variance, 1.5);
+		this.min = minKey;
+		this.max = maxKey;
+		this.mode = copy(modeEntry);
+		this.median = copy(medianEntry);
+	}
+	
+	/**
+	 * Summarise a <code>ProbMap</code> by converting its keys into <code>double</code>s
+	 * @param <T>		type of the keys of the <code>ProbMap</code>
+	 * @param pm		<code>ProbMap</code> to summarise
+	 * @param function	rule for converting keys into <code>double</code>s
+	 * @return			summary statistics of <code>pm</code>
+	 */
+	public static <T> ProbStats<T> of(ProbMap<T> pm, ToDoubleFunction<? super T> function)
+	{
+		return new ProbStats<T>(pm, function);
+	}
+	
+	/**
+	 * Summarise a <code>ProbMap</code> of <code>Number</code>s
+	 * @param <T>		type of the keys of the <code>ProbMap</code>
+	 * @param pm		<code>ProbMap</code> to summarise
+	 * @return			summary statistics of <code>pm</code>
+	 */
+	public static <T extends Number> ProbStats<T> of(ProbMap<T> pm)
+	{
+		return new ProbStats<T>(pm, Number::doubleValue);
+	}
+	
+	/**
+	 * Copy an entry so that it does not write through to the <code>ProbMap</code>
+	 * @param entry		entry to copy, or <code>null</code>
+	 * @return			immutable copy of the entry, or <code>null</code>
+	 */
+	private static <T> Entry<T, Double> copy(Entry<T, Double> entry)
+	{
+		if (entry == null)
+			return null;
+		
+		return new SimpleImmutableEntry<T, Double>(entry.getKey(), entry.getValue());
+	}
+	
+	/**
+	 * Get the sum of all the probabilities
+	 * @return		total probability
+	 */
+	public double getMass()
+	{
+		return mass;
+	}
+	
+	/**
+	 * Get the number of keys
+	 * @return		number of keys in the <code>ProbMap</code>
+	 */
+	public int getCount()
+	{
+		return count;
+	}
+	
+	/**
+	 * Get the mean average
+	 * @return		sum of keys multiplied by their probabilities, divided by the total probability,
+	 * 				or <code>NaN</code> if the <code>ProbMap</code> is empty
+	 */
+	public double getMean()
+	{
+		return mean;
+	}
+	
+	/**
+	 * Get the variance
+	 * @return		mean squared deviation of the keys from the mean,
+	 * 				or <code>NaN</code> if the <code>ProbMap</code> is empty
+	 */
+	public double getVariance()
+	{
+		return variance;
+	}
+	
+	/**
+	 * Get the standard deviation
+	 * @return		square root of the variance
+	 */
+	public double getStandardDeviation()
+	{
+		return Math.sqrt(variance);
+	}
+	
+	/**
+	 * Get the skewness
+	 * @return		third standardised moment of the keys,
+	 * 				or <code>NaN</code> if the variance is zero
+	 */
+	public double getSkewness()
+	{
+		return skewness;
+	}
+	
+	/**
+	 * Get the smallest key
+	 * @return		smallest key as a <code>double</code>,
+	 * 				or <code>NaN</code> if the <code>ProbMap</code> is empty
+	 */
+	public double getMin()
+	{
+		return min;
+	}
+	
+	/**
+	 * Get the largest key
+	 * @return		largest key as a <code>double</code>,
+	 * 				or <code>NaN</code> if the <code>ProbMap</code> is empty
+	 */
+	public double getMax()
+	{
+		return max;
+	}
+	
+	/**
+	 * Get the mode average
+	 * @return		entry with the highest probability, the first in key order if several are equal,
+	 * 				or <code>null</code> if the <code>ProbMap</code> is empty
+	 */
+	public Entry<K, Double> getMode()
+	{
+		return mode;
+	}
+	
+	/**
+	 * Get the median average
+	 * @return		the first entry in key order which, when its probability is summed with the
+	 * 				probabilities of all preceding entries, results in a probability
+	 * 				greater than or equal to half the sum of all the probabilities,
+	 * 				or <code>null</code> if the <code>ProbMap</code> is empty
+	 */
+	public Entry<K, Double> getMedian()
+	{
+		return median;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("mass %.3f, count %d, mean %.3f, sd %.3f, skew %.3f, min %.3f, max %.3f, mode %s, median %s",
+				mass, count, mean, getStandardDeviation(), skewness, min, max,
+				mode == null ? null : mode.getKey(), median == null ? null : median.getKey());
+	}
+}
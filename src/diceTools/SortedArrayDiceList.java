@@ -0,0 +1,81 @@
+package diceTools;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * {@link SortedDiceList} backed by an array, used for values which cannot be packed into a {@link PackedDiceList}.
+ * The hash code defined by {@link java.util.List#hashCode() List.hashCode()} is calculated
+ * when the <code>SortedArrayDiceList</code> is constructed.
+ *
+ * @author kieran
+ */
+final class SortedArrayDiceList extends AbstractList<DiceNumber> implements SortedDiceList
+{
+	/**
+	 * Values in ascending order
+	 */
+	private final DiceNumber[] values;
+	
+	/**
+	 * Hash code defined by <code>List.hashCode()</code>
+	 */
+	private final int hash;
+	
+	/**
+	 * Constructs a <code>SortedArrayDiceList</code> which takes ownership of an array
+	 * @param values	non-null values in ascending order
+	 */
+	SortedArrayDiceList(DiceNumber[] values)
+	{
+		this.values = values;
+		this.hash = Arrays.hashCode(values);
+	}
+	
+	/**
+	 * Check whether a <code>List</code> is one of this package's own implementations of {@link SortedDiceList},
+	 * whose values are known to be in ascending order
+	 * @param list	<code>List</code> to check
+	 * @return		<code>true</code> if <code>list</code> is a {@link PackedDiceList} or a <code>SortedArrayDiceList</code>
+	 */
+	static boolean isTrusted(Object list)
+	{
+		return list instanceof PackedDiceList || list instanceof SortedArrayDiceList;
+	}
+	
+	@Override
+	public SortedDiceList slice(int fromIndex, int toIndex)
+	{
+		if (fromIndex == 0 && toIndex == values.length)
+			return this;
+		
+		if (fromIndex < 0 || toIndex > values.length || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + values.length);
+		
+		return SortedDiceList.ofSorted(Arrays.copyOfRange(values, fromIndex, toIndex));
+	}
+	
+	@Override
+	public DiceNumber get(int index)
+	{
+		return values[index];
+	}
+	
+	@Override
+	public int size()
+	{
+		return values.length;
+	}
+	
+	@Override
+	public Object[] toArray()
+	{
+		return Arrays.copyOf(values, values.length, Object[].class);
+	}
+	
+	@Override
+	public int hashCode()
+	{
+		return hash;
+	}
+}
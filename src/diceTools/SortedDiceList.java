@@ -0,0 +1,94 @@
+package diceTools;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable <code>List</code> of {@link DiceNumber}s held in ascending order.
+ * <p>This is the form in which a {@link DicePoolMap} stores its keys, so a <code>SortedDiceList</code>
+ * is stored without being copied or sorted again. Operations which select the highest or lowest
+ * values can {@link #slice(int, int) slice} a <code>SortedDiceList</code> instead of searching it,
+ * and operations which add values can merge them in order.
+ * <p>Values which can be packed are held in a {@link PackedDiceList}.
+ * Only the implementations in this package are trusted to be in order without being checked,
+ * since any other class may implement this interface.
+ *
+ * @author kieran
+ */
+public interface SortedDiceList extends List<DiceNumber>, RandomAccess
+{
+	/**
+	 * Get a range of the values
+	 * @param fromIndex		index of the first value in the range
+	 * @param toIndex		index after the last value in the range
+	 * @return				<code>SortedDiceList</code> holding the values in the range,
+	 * 						which is independent of this <code>SortedDiceList</code>
+	 * @throws IndexOutOfBoundsException if the range is out of bounds
+	 */
+	public SortedDiceList slice(int fromIndex, int toIndex);
+	
+	/**
+	 * Create a <code>SortedDiceList</code> holding values which are already in ascending order.
+	 * The array is not retained, so may be reused by the caller.
+	 * @param sorted	non-null values in ascending order
+	 * @return			<code>PackedDiceList</code> if every value {@link PackedDiceList#canPack(List) can be packed},
+	 * 					otherwise a <code>SortedDiceList</code> holding a copy of the array
+	 * @throws IllegalArgumentException if the values are not in ascending order
+	 */
+	public static SortedDiceList ofSorted(DiceNumber[] sorted)
+	{
+		for (int i = 1; i < sorted.length; i++)
+			if (sorted[i - 1].compareTo(sorted[i]) > 0)
+				throw new IllegalArgumentException("Values of a SortedDiceList must be in ascending order");
+		
+		int[] faces = new int[sorted.length];
+		
+		for (int i = 0; i < sorted.length; i++)
+		{
+			final DiceNumber n = sorted[i];
+			
+			if (!n.isInt() || !PackedDiceList.canPack(n.intValue()))
+				return new SortedArrayDiceList(sorted.clone());
+			
+			faces[i] = n.intValue();
+		}
+		
+		return PackedDiceList.ofSorted(faces);
+	}
+	
+	/**
+	 * Merge two <code>List</code>s of values which are each in ascending order
+	 * @param a		non-null values in ascending order
+	 * @param b		non-null values in ascending order
+	 * @return		<code>SortedDiceList</code> holding the values of both
+	 */
+	public static SortedDiceList merge(List<? extends DiceNumber> a, List<? extends DiceNumber> b)
+	{
+		if (a instanceof PackedDiceList && b instanceof PackedDiceList)
+			return ((PackedDiceList) a).withAll((PackedDiceList) b);
+		
+		DiceNumber[] merged = new DiceNumber[a.size() + b.size()];
+		Iterator<? extends DiceNumber> iterA = a.iterator();
+		Iterator<? extends DiceNumber> iterB = b.iterator();
+		DiceNumber nA = iterA.hasNext() ? iterA.next() : null;
+		DiceNumber nB = iterB.hasNext() ? iterB.next() : null;
+		int i = 0;
+		
+		while (nA != null || nB != null)
+		{
+			if (nB == null || (nA != null && nA.compareTo(nB) <= 0))
+			{
+				merged[i++] = nA;
+				nA = iterA.hasNext() ? iterA.next() : null;
+			}
+			else
+			{
+				merged[i++] = nB;
+				nB = iterB.hasNext() ? iterB.next() : null;
+			}
+		}
+		
+		return ofSorted(merged);
+	}
+}
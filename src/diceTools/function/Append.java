@@ -1,12 +1,15 @@
 package diceTools.function;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.function.Function;
 
+import diceTools.DiceNumber;
 import diceTools.ImmutableList;
+import diceTools.SortedDiceList;
 
 /**
  * {@link java.util.function.Function Function} to append values
@@ -17,6 +20,9 @@ import diceTools.ImmutableList;
  * <p><code>Append&lt;Integer&gt;</code> is a valid argument for
  * {@link diceTools.DicePoolMap#morph(Function)}
  *
+ * <p>When appending {@link DiceNumber}s to a {@link SortedDiceList}, the new values
+ * are merged in order instead, and the result is returned as a <code>SortedDiceList</code>.
+ *
  * @param <T> type of the elements in the <code>List</code>
  *
  * @author kieran
@@ -63,12 +69,44 @@ public class Append <T> implements Function<List<? extends T>, List<T>>
 	@Override
 	public List<T> apply(List<? extends T> li)
 	{
+		if (li instanceof SortedDiceList)
+		{
+			List<T> merged = mergeSorted((SortedDiceList) li);
+			
+			if (merged != null)
+				return merged;
+		}
+		
 		List<T> liNew = new LinkedList<T>(li);
 		for (T t : it)
 			liNew.add(t);
 		return liNew;
 	}
 	
+	/**
+	 * Merge the elements to append into a <code>SortedDiceList</code>
+	 * @param li	<code>SortedDiceList</code> to append to
+	 * @return		new <code>SortedDiceList</code> holding the elements of both, or <code>null</code>
+	 * 				if any element to append is not a <code>DiceNumber</code>
+	 */
+	@SuppressWarnings("unchecked")
+	private List<T> mergeSorted(SortedDiceList li)
+	{
+		List<DiceNumber> added = new ArrayList<DiceNumber>();
+		
+		for (T t : it)
+		{
+			if (!(t instanceof DiceNumber))
+				return null;
+			
+			added.add((DiceNumber) t);
+		}
+		
+		added.sort(null);
+		
+		return (List<T>) SortedDiceList.merge(li, added);
+	}
+	
 	/**
 	 * <code>Iterable</code> for single elements.
 	 * Iterators produced by <code>IterSingle</code> produce a single
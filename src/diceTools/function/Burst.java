@@ -1,18 +1,25 @@
 package diceTools.function;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.function.Function;
 
 import diceTools.DiceNumber;
 import diceTools.DicePoolMap;
 import diceTools.ImmutableList;
+import diceTools.Memoizer;
 import diceTools.DiceRollMap;
 
 /**
  * {@link java.util.function.Function Function} to replace values in a
  * <code>List</code> with each value from a {@link DiceRollMap} to generate a {@link DicePoolMap}
  * 
+ * <p>The pool of replacements for the values which are replaced depends only on those values,
+ * so it is cached in a {@link Memoizer} keyed by the sorted replaced values, and shared
+ * between every <code>List</code> burst by the same <code>Burst</code>.
+ * The rule for replacing values must therefore always give the same replacements for equal values.
+ * 
  * @author kieran
  */
 public class Burst implements Function<List<? extends DiceNumber>, DicePoolMap>
@@ -24,6 +31,11 @@ public class Burst implements Function<List<? extends DiceNumber>, DicePoolMap>
 	 */
 	private final Function<? super DiceNumber, ? extends DiceRollMap> replacer;
 	
+	/**
+	 * Cache of the pools of replacements for sorted <code>List</code>s of replaced values
+	 */
+	private final Memoizer<List<DiceNumber>, DicePoolMap> replacements = new Memoizer<List<DiceNumber>, DicePoolMap>(this::burstAll);
+	
 	/**
 	 * Constructs a <code>Burst</code> with a given <code>List</code>
 	 * of {@link DiceNumber}s to match and a given
@@ -76,6 +88,17 @@ public class Burst implements Function<List<? extends DiceNumber>, DicePoolMap>
 	{
 		this.replacer = replacer;
 	}
+	
+	/**
+	 * Get the replacements for a single {@link DiceNumber}
+	 * @param n		<code>DiceNumber</code> to look up
+	 * @return		<code>DiceRollMap</code> of replacements and their probabilities,
+	 * 				or <code>null</code> if <code>n</code> is not replaced
+	 */
+	public DiceRollMap getReplacement(DiceNumber n)
+	{
+		return replacer.apply(n);
+	}
 
 	@Override
 	public DicePoolMap apply(List<? extends DiceNumber> li)
@@ -88,32 +111,47 @@ public class Burst implements Function<List<? extends DiceNumber>, DicePoolMap>
 		if (li.isEmpty())
 			return dpm;
 		
-		DiceNumber checkN = li.get(0);
-		DiceRollMap repMap = replacer.apply(checkN);
+		List<DiceNumber> kept = new ArrayList<DiceNumber>();
+		List<DiceNumber> replaced = new ArrayList<DiceNumber>();
 		
-		if (repMap == null)
+		for (DiceNumber n : li)
 		{
-			List<DiceNumber> key = new LinkedList<DiceNumber>();
-			key.add(checkN);
-			dpm.put(key, 1.0);
+			if (replacer.apply(n) == null)
+				kept.add(n);
+			else
+				replaced.add(n);
 		}
-		else
-			dpm = new DicePoolMap(repMap);
 		
-		for (int checkPos = 1; checkPos < li.size(); checkPos++)
+		if (replaced.isEmpty())
 		{
-			checkN = li.get(checkPos);
-			repMap = replacer.apply(checkN);
-			
-			if (repMap == null)
-			{
-				Append<DiceNumber> app = new Append<DiceNumber>(checkN);
-				dpm = (DicePoolMap) dpm.morph(app);
-			}
-			else
-				dpm = dpm.combine(repMap);
+			dpm.put(li, 1.0);
+			return dpm;
 		}
 		
+		replaced.sort(null);
+		DicePoolMap repPool = replacements.apply(new ImmutableList<DiceNumber>(replaced));
+		
+		if (kept.isEmpty())
+		{
+			dpm.putAll(repPool);
+			return dpm;
+		}
+		
+		return (DicePoolMap) repPool.morph(new Append<DiceNumber>((Collection<? extends DiceNumber>) kept));
+	}
+	
+	/**
+	 * Generate the pool of replacements for a <code>List</code> of values which are all replaced
+	 * @param li	non-empty <code>List</code> of replaced values
+	 * @return		<code>DicePoolMap</code> of every combination of replacements
+	 */
+	private DicePoolMap burstAll(List<DiceNumber> li)
+	{
+		DicePoolMap dpm = new DicePoolMap(replacer.apply(li.get(0)));
+		
+		for (int pos = 1; pos < li.size(); pos++)
+			dpm = dpm.combine(replacer.apply(li.get(pos)));
+		
 		return dpm;
 	}
 
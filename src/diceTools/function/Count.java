@@ -4,34 +4,36 @@ import java.util.List;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
+import diceTools.DiceNumber;
+
 /**
  * {@link java.util.function.Function Function}
- * to count <code>Integer</code>'s in a <code>List</code>.
- * Counting is performed by checking each <code>Integer</code> with a
+ * to count {@link DiceNumber}s in a <code>List</code>.
+ * Counting is performed by checking each <code>DiceNumber</code> with a
  * {@link java.util.function.Predicate Predicate}, and incrementing
  * the count iff it returns true.
- * 
+ *
  * <p><code>Count</code> is a valid argument for
- * {@link diceTools.DicePoolMap#flatten(Function) DicePoolMap.flatten(Function)}
- * 
+ * {@link diceTools.DicePoolMap#flatten(Function) DicePoolMap.flatten(Function)}.
+ * To count the successes of a set of identical dice without enumerating the pool, use
+ * {@link diceTools.DiceRollMap#countAtLeast(int, diceTools.DiceRollMap, DiceNumber...) DiceRollMap.countAtLeast}.
+ *
  * @author kieran
  */
-public class Count implements Function<List<Integer>, Integer>
+public class Count implements Function<List<? extends DiceNumber>, DiceNumber>
 {
-	//TODO: reimplement Count to act on DiceNumbers rather than Integers
-	
 	/**
 	 * {@link java.util.function.Predicate#Predicate Predicate}
-	 * used to determine which <code>Integer</code>'s to count
+	 * used to determine which <code>DiceNumber</code>s to count
 	 */
-	private final Predicate<Integer> pred;
+	private final Predicate<? super DiceNumber> pred;
 	
 	/**
 	 * Constructs a <code>Count</code> with a given
 	 * {@link java.util.function.Predicate Predicate}.
-	 * @param pred <code>Predicate</code> to determine which <code>Integer</code>s should be counted
+	 * @param pred <code>Predicate</code> to determine which <code>DiceNumber</code>s should be counted
 	 */
-	public Count(Predicate<Integer> pred)
+	public Count(Predicate<? super DiceNumber> pred)
 	{
 		if (pred == null)
 			this.pred = n -> true;
@@ -40,22 +42,22 @@ public class Count implements Function<List<Integer>, Integer>
 	}
 	
 	@Override
-	public Integer apply(List<Integer> li)
+	public DiceNumber apply(List<? extends DiceNumber> li)
 	{
 		if (li == null)
 			throw new NullPointerException("Input List is null");
 		
 		int count = 0;
 		
-		for (Integer checkInt : li)
-			if (pred.test(checkInt))
+		for (DiceNumber checkNum : li)
+			if (pred.test(checkNum))
 				count++;
 		
-		return count;
+		return DiceNumber.valueOf(count);
 	}
 
 	/**
-	 * Generates a <code>Count</code> which counts the number of <code>Integer</code>s
+	 * Generates a <code>Count</code> which counts the number of <code>DiceNumber</code>s
 	 * in a <code>List</code> which are equal to some value.
 	 * @param val	value to check for
 	 * @return		generated <code>Count</code>. Note that the <code>Count</code> does not handle
@@ -63,7 +65,20 @@ public class Count implements Function<List<Integer>, Integer>
 	 */
 	public static Count countVal(int val)
 	{
-		Predicate<Integer> p = (x) -> {return x.equals(val);};
+		Predicate<DiceNumber> p = (x) -> {return x.compareTo(val) == 0;};
+		return new Count(p);
+	}
+	
+	/**
+	 * Generates a <code>Count</code> which counts the number of <code>DiceNumber</code>s
+	 * in a <code>List</code> which are at least some value.
+	 * @param threshold	lowest value to count
+	 * @return			generated <code>Count</code>. Note that the <code>Count</code> does not handle
+	 * 					<code>null</code> values in the <code>List</code>
+	 */
+	public static Count countAtLeast(DiceNumber threshold)
+	{
+		Predicate<DiceNumber> p = (x) -> {return x.compareTo(threshold) >= 0;};
 		return new Count(p);
 	}
 }
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.function.Function;
 
 import diceTools.DiceNumber;
+import diceTools.SortedDiceList;
 
 /**
  * {@link java.util.function.Function Function} to discard some values
@@ -17,6 +18,10 @@ import diceTools.DiceNumber;
  * <p><code>DiscardN&lt;Integer&gt;</code> is a valid argument for
  * {@link diceTools.DicePoolMap#morph(Function) DicePoolMap.morph(Function)}
  * 
+ * <p>When the elements are ordered by their natural ordering or its reverse,
+ * a {@link SortedDiceList} is {@link SortedDiceList#slice(int, int) slice}d instead,
+ * and the remaining elements are returned as a <code>SortedDiceList</code> in ascending order.
+ * 
  * @param <T> type of the elements in the <code>List</code>
  * 
  * @author kieran
@@ -34,6 +39,13 @@ public class DiscardN<T> implements Function<List<? extends T>, List<T>>
 	 */
 	private final Comparator<? super T> comp;
 	
+	/**
+	 * <code>1</code> if <code>comp</code> is the natural ordering, so the highest elements are discarded,
+	 * <code>-1</code> if it is the reverse of the natural ordering, so the lowest elements are discarded,
+	 * otherwise <code>0</code>
+	 */
+	private final int order;
+	
 	/**
 	 * Constructs a <code>DiscardN</code> which discards the first
 	 * {@code nDiscard} elements of a <code>List</code>
@@ -47,6 +59,8 @@ public class DiscardN<T> implements Function<List<? extends T>, List<T>>
 	{
 		this.nDiscard = nDiscard;
 		this.comp = comp;
+		this.order = Comparator.<DiceNumber>naturalOrder().equals(comp) ? 1
+				: Comparator.<DiceNumber>reverseOrder().equals(comp) ? -1 : 0;
 	}
 	
 	@Override
@@ -57,6 +71,16 @@ public class DiscardN<T> implements Function<List<? extends T>, List<T>>
 		
 		final int size = li.size();
 		
+		if (order != 0 && li instanceof SortedDiceList)
+		{
+			final int discard = Math.max(0, Math.min(nDiscard, size));
+			SortedDiceList sorted = (SortedDiceList) li;
+			
+			@SuppressWarnings("unchecked")
+			List<T> remain = (List<T>) (order > 0 ? sorted.slice(0, size - discard) : sorted.slice(discard, size));
+			return remain;
+		}
+		
 		if (size - nDiscard <= 0)
 			return new ArrayList<T>(0);
 		
@@ -1,16 +1,31 @@
 package diceTools.function;
 
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.function.Function;
 
 import diceTools.DiceNumber;
 import diceTools.DicePoolMap;
+import diceTools.DiceRollMap;
+import diceTools.Memoizer;
 
 /**
  * {@link java.util.function.Function Function} to repeatedly apply
  * <code>Burst.{@link Burst#apply(List) apply}(List)</code> to a
  * <code>List&lt;{@link DiceNumber}&gt;</code>
  * 
+ * <p>Since each die is burst independently of the others, the distribution of a single
+ * exploded die is found once for each distinct value, and the copies are combined
+ * into a {@link DicePoolMap}. The pools generated by the intermediate bursts are never built.
+ * The distributions of single dice are cached in a {@link Memoizer}, so they are shared
+ * between every <code>List</code> exploded by the same <code>Explode</code>.
+ * 
+ * <p>An <code>Explode</code> either bursts a fixed number of times, or keeps bursting
+ * until the residual probability, which rests on values that would still be replaced,
+ * falls to a threshold or the distribution of a die grows to a maximum number of entries.
+ * The residual is left on the values which would be replaced, and can be found
+ * with {@link #getResidual(List)}.
+ * 
  * @see Burst
  * 
  * @author kieran
@@ -27,6 +42,27 @@ public class Explode implements Function<List<? extends DiceNumber>, DicePoolMap
 	 */
 	private final int numBursts;
 	
+	/**
+	 * Residual probability of a die at or below which bursting stops
+	 */
+	private final double epsilon;
+	
+	/**
+	 * Number of entries in the distribution of a die at or above which bursting stops
+	 */
+	private final int maxEntries;
+	
+	/**
+	 * Whether bursting continues until the residual or entry limits are reached,
+	 * rather than for a fixed number of times
+	 */
+	private final boolean bounded;
+	
+	/**
+	 * Cache of the distributions of single exploded dice
+	 */
+	private final Memoizer<DiceNumber, DiceRollMap> dice = new Memoizer<DiceNumber, DiceRollMap>(this::explode);
+	
 	/**
 	 * Constructs an <code>Explode</code> with a specified <code>Burst</code>
 	 * and number of times to apply it
@@ -41,18 +77,223 @@ public class Explode implements Function<List<? extends DiceNumber>, DicePoolMap
 		
 		this.numBursts = numTimes;
 		this.burst = burst;
+		this.epsilon = 0.0;
+		this.maxEntries = Integer.MAX_VALUE;
+		this.bounded = false;
+	}
+	
+	/**
+	 * Constructs an <code>Explode</code> which keeps applying a specified <code>Burst</code>
+	 * until the residual probability of each die is at most <code>epsilon</code>,
+	 * or its distribution holds at least <code>maxEntries</code> entries.
+	 * Bursting also stops once another burst would not reduce the residual probability.
+	 * 
+	 * @param burst			<code>Burst</code> to repeatedly apply to <code>List</code>s
+	 * @param epsilon		residual probability of a die at or below which bursting stops
+	 * @param maxEntries	number of entries in the distribution of a die at or above which bursting stops
+	 */
+	public Explode(Burst burst, double epsilon, int maxEntries)
+	{
+		if (!(epsilon >= 0.0))
+			throw new IllegalArgumentException("Residual probability threshold must be non-negative");
+		
+		if (maxEntries <= 0)
+			throw new IllegalArgumentException("Maximum number of entries must be positive");
+		
+		this.numBursts = Integer.MAX_VALUE;
+		this.burst = burst;
+		this.epsilon = epsilon;
+		this.maxEntries = maxEntries;
+		this.bounded = true;
 	}
 	
 	@Override
 	public DicePoolMap apply(List<? extends DiceNumber> li)
 	{
+		if (li == null)
+			throw new NullPointerException("Input List is null");
+		
 		DicePoolMap dpm = new DicePoolMap();
-		dpm.put(li, 1.0);
 		
-		for (int b = 0; b < numBursts; b++)
-			dpm = (DicePoolMap) dpm.fork(burst);
+		if (numBursts == 0)
+		{
+			dpm.put(li, 1.0);
+			return dpm;
+		}
+		
+		if (li.isEmpty())
+			return dpm;
+		
+		for (int pos = 0; pos < li.size(); pos++)
+		{
+			DiceRollMap die = dice.apply(li.get(pos));
+			
+			if (pos == 0)
+				dpm = new DicePoolMap(die);
+			else
+				dpm = dpm.combine(die);
+		}
 		
 		return dpm;
 	}
+	
+	/**
+	 * Find the distribution of a single die after the <code>Burst</code> has been applied
+	 * <code>numBursts</code> times
+	 * @param n		value of the die before bursting
+	 * @return		<code>DiceRollMap</code> of the values of the die after bursting
+	 */
+	public DiceRollMap explodeDie(DiceNumber n)
+	{
+		return new DiceRollMap(dice.apply(n));
+	}
+	
+	/**
+	 * Calculate the distribution of a single die after the <code>Burst</code> has been applied
+	 * <code>numBursts</code> times
+	 * @param n		value of the die before bursting
+	 * @return		<code>DiceRollMap</code> of the values of the die after bursting
+	 */
+	private DiceRollMap explode(DiceNumber n)
+	{
+		DiceRollMap replacement = burst.getReplacement(n);
+		
+		if (numBursts == 0 || replacement == null)
+		{
+			DiceRollMap die = new DiceRollMap();
+			die.put(n, 1.0);
+			return die;
+		}
+		
+		if (isSelfReplacing(replacement))
+			return geometricSeries(replacement);
+		
+		DiceRollMap die = new DiceRollMap(replacement);
+		double residual = residual(die);
+		
+		for (int b = 1; b < numBursts && residual > epsilon && die.size() < maxEntries; b++)
+		{
+			DiceRollMap next = (DiceRollMap) die.fork((key) -> {
+				DiceRollMap rep = burst.getReplacement(key);
+				
+				if (rep != null)
+					return rep;
+				
+				DiceRollMap same = new DiceRollMap();
+				same.put(key, 1.0);
+				return same;
+			});
+			
+			final double nextResidual = residual(next);
+			
+			if (bounded && nextResidual >= residual)
+				break;
+			
+			die = next;
+			residual = nextResidual;
+		}
+		
+		return die;
+	}
+	
+	/**
+	 * Find the probability that any die in an exploded <code>List</code> still shows a value
+	 * which would be replaced by another burst
+	 * @param li	<code>List</code> of <code>DiceNumber</code>s before bursting
+	 * @return		residual probability of the <code>DicePoolMap</code>
+	 * 				which {@link #apply(List) apply}(<code>li</code>) generates
+	 */
+	public double getResidual(List<? extends DiceNumber> li)
+	{
+		double logKept = 0.0;
+		
+		for (DiceNumber n : li)
+			logKept += Math.log1p(-residual(dice.apply(n)));
+		
+		return (logKept == 0.0) ? 0.0 : -Math.expm1(logKept);
+	}
+	
+	/**
+	 * Check whether every replaced value in a <code>DiceRollMap</code> of replacements
+	 * is itself replaced by the same <code>DiceRollMap</code>, as when exploding on
+	 * a fixed set of values with a single die
+	 * @param replacement	<code>DiceRollMap</code> of replacements
+	 * @return				<code>true</code> if the replacements of <code>replacement</code>
+	 * 						are always <code>replacement</code> itself
+	 */
+	private boolean isSelfReplacing(DiceRollMap replacement)
+	{
+		for (DiceNumber key : replacement.keySet())
+		{
+			DiceRollMap rep = burst.getReplacement(key);
+			
+			if (rep != null && rep != replacement)
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Find the probability resting on values in a <code>DiceRollMap</code>
+	 * which would be replaced by another burst
+	 * @param die	<code>DiceRollMap</code> of the values of a die
+	 * @return		total probability of the keys of <code>die</code> which are replaced
+	 */
+	private double residual(DiceRollMap die)
+	{
+		double residual = 0.0;
+		
+		for (Entry<DiceNumber, Double> entry : die.entrySet())
+			if (burst.getReplacement(entry.getKey()) != null)
+				residual += entry.getValue();
+		
+		return residual;
+	}
+	
+	/**
+	 * Find the distribution of a die which is replaced by a self-replacing <code>DiceRollMap</code>
+	 * in closed form. If <code>q</code> is the probability of rolling a replaced value, then after
+	 * <code>n</code> bursts each value which is kept has been rolled with total weight
+	 * <code>1 + q + ... + q^(n - 1)</code>, and each value still to be replaced has been
+	 * rolled with weight <code>q^(n - 1)</code>, leaving a residual probability of <code>q^n</code>.
+	 * @param replacement	self-replacing <code>DiceRollMap</code> of replacements
+	 * @return				<code>DiceRollMap</code> of the values of the die after bursting
+	 * @see #isSelfReplacing(DiceRollMap)
+	 */
+	private DiceRollMap geometricSeries(DiceRollMap replacement)
+	{
+		final double repeat = residual(replacement);
+		final double rounds = bounded ? roundsToThreshold(repeat) : numBursts;
+		
+		final double power = Math.pow(repeat, rounds - 1);
+		final double series = (repeat == 1.0) ? rounds : (1.0 - power * repeat) / (1.0 - repeat);
+		
+		DiceRollMap die = new DiceRollMap();
+		
+		for (Entry<DiceNumber, Double> entry : replacement.entrySet())
+		{
+			final boolean replaced = burst.getReplacement(entry.getKey()) != null;
+			die.put(entry.getKey(), entry.getValue() * (replaced ? power : series));
+		}
+		
+		return die;
+	}
+	
+	/**
+	 * Find the number of bursts after which the residual probability <code>q^n</code>
+	 * of a die with a self-replacing <code>DiceRollMap</code> is at most <code>epsilon</code>
+	 * @param repeat	probability <code>q</code> of rolling a replaced value
+	 * @return			number of bursts, which is one if the residual probability never shrinks
+	 */
+	private double roundsToThreshold(double repeat)
+	{
+		if (repeat <= epsilon || repeat >= 1.0)
+			return 1;
+		
+		final double threshold = Math.max(epsilon, Double.MIN_VALUE);
+		
+		return Math.ceil(Math.log(threshold) / Math.log(repeat));
+	}
 
 }
@@ -8,6 +8,7 @@ import java.util.function.Function;
 
 import diceTools.DiceNumber;
 import diceTools.ImmutableList;
+import diceTools.SortedDiceList;
 
 /**
  * {@link java.util.function.Function Function} to keep some values
@@ -19,6 +20,10 @@ import diceTools.ImmutableList;
  * <p><code>KeepN&lt;Integer&gt;</code> is a valid argument for
  * {@link diceTools.DicePoolMap#morph(Function) DicePoolMap.morph(Function)}
  * 
+ * <p>When the elements are ordered by their natural ordering or its reverse,
+ * a {@link SortedDiceList} is {@link SortedDiceList#slice(int, int) slice}d instead,
+ * and the kept elements are returned as a <code>SortedDiceList</code> in ascending order.
+ * 
  * @param <T> type of the elements in the <code>List</code>
  * 
  * @author kieran
@@ -36,6 +41,13 @@ public class KeepN<T> implements Function<List<? extends T>, List<T>>
 	 */
 	private final Comparator<? super T> comp;
 	
+	/**
+	 * <code>1</code> if <code>comp</code> is the natural ordering, so the highest elements are kept,
+	 * <code>-1</code> if it is the reverse of the natural ordering, so the lowest elements are kept,
+	 * otherwise <code>0</code>
+	 */
+	private final int order;
+	
 	/**
 	 * Constructs a <code>KeepN</code> which keeps the first <code>nKeep</code>
 	 * elements of a <code>List</code> according to the ordering defined by
@@ -47,6 +59,8 @@ public class KeepN<T> implements Function<List<? extends T>, List<T>>
 	{
 		this.nKeep = nKeep;
 		this.comp = comp;
+		this.order = Comparator.<DiceNumber>naturalOrder().equals(comp) ? 1
+				: Comparator.<DiceNumber>reverseOrder().equals(comp) ? -1 : 0;
 	}
 	
 	@Override
@@ -57,6 +71,16 @@ public class KeepN<T> implements Function<List<? extends T>, List<T>>
 		
 		final int size = li.size();
 		
+		if (order != 0 && li instanceof SortedDiceList)
+		{
+			final int keep = Math.max(0, Math.min(nKeep, size));
+			SortedDiceList sorted = (SortedDiceList) li;
+			
+			@SuppressWarnings("unchecked")
+			List<T> kept = (List<T>) (order > 0 ? sorted.slice(size - keep, size) : sorted.slice(0, keep));
+			return kept;
+		}
+		
 		if (size <= nKeep)
 			return new ImmutableList<T>(li);
 		
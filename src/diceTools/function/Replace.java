@@ -1,10 +1,14 @@
 package diceTools.function;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
+import diceTools.DiceNumber;
+import diceTools.SortedDiceList;
+
 /**
  * {@link java.util.function.Function Function} to replace some
  * values in a list with others. This process is performed by copying the
@@ -14,6 +18,10 @@ import java.util.function.Function;
  * <p><code>Replace&lt;Integer&gt;</code> is a valid argument for
  * {@link diceTools.DicePoolMap#morph(Function) DicePoolMap.morph(Function)}
  *
+ * <p>When replacing {@link DiceNumber}s in a {@link SortedDiceList}, the replacement is
+ * performed in place on a copy of its values, which are only sorted again if a replacement
+ * has broken their order. The result is returned as a <code>SortedDiceList</code>.
+ *
  * @param <T> type of the elements in the <code>List</code>
  *
  * @author kieran
@@ -69,7 +77,15 @@ public class Replace <T> implements Function<List<T>, List<T>>
 	@Override
 	public List<T> apply(List<T> li)
 	{
-		List<T> newList = new LinkedList<T>();
+		if (li instanceof SortedDiceList)
+		{
+			List<T> replaced = replaceSorted(li);
+			
+			if (replaced != null)
+				return replaced;
+		}
+		
+		List<T> newList = new ArrayList<T>(li.size());
 		
 		for (T t : li)
 		{
@@ -83,5 +99,39 @@ public class Replace <T> implements Function<List<T>, List<T>>
 		
 		return newList;
 	}
+	
+	/**
+	 * Perform the replacement in place on a copy of the values of a <code>SortedDiceList</code>
+	 * @param li	<code>SortedDiceList</code> whose values are replaced
+	 * @return		<code>SortedDiceList</code> holding the values after replacement,
+	 * 				or <code>null</code> if any replacement is not a <code>DiceNumber</code>
+	 */
+	@SuppressWarnings("unchecked")
+	private List<T> replaceSorted(List<T> li)
+	{
+		DiceNumber[] values = new DiceNumber[li.size()];
+		boolean sorted = true;
+		
+		for (int i = 0; i < values.length; i++)
+		{
+			final T t = li.get(i);
+			final T newItem = replaceFunc.apply(t);
+			
+			if (newItem == null)
+				values[i] = (DiceNumber) t;
+			else if (newItem instanceof DiceNumber)
+				values[i] = (DiceNumber) newItem;
+			else
+				return null;
+			
+			if (i > 0 && values[i - 1].compareTo(values[i]) > 0)
+				sorted = false;
+		}
+		
+		if (!sorted)
+			Arrays.sort(values);
+		
+		return (List<T>) SortedDiceList.ofSorted(values);
+	}
 
 }
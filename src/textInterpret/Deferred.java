@@ -0,0 +1,35 @@
+package textInterpret;
+
+/**
+ * Value whose evaluation is deferred until it is needed.
+ * <p>Operators which can build on a <code>Deferred</code> value without evaluating it
+ * override {@link TokenUnary#operateDeferred(Object)} or {@link TokenInfix#operateDeferred(Object, Object)}.
+ * All other operators receive the {@link #resolve() resolved} value.
+ * 
+ * @see Token#getVariable()
+ * @see Token#getLazyVariable()
+ * 
+ * @author kieran
+ */
+public interface Deferred
+{
+	/**
+	 * Evaluate the deferred value
+	 * @return		the value, which is never itself <code>Deferred</code>
+	 */
+	public Object resolve();
+	
+	/**
+	 * Resolve an object if it is <code>Deferred</code>
+	 * @param obj	object to resolve
+	 * @return		the resolved value of <code>obj</code> if it is <code>Deferred</code>,
+	 * 				otherwise <code>obj</code>
+	 */
+	public static Object resolve(Object obj)
+	{
+		if (obj instanceof Deferred)
+			return ((Deferred) obj).resolve();
+		
+		return obj;
+	}
+}
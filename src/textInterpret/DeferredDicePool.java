@@ -0,0 +1,251 @@
+package textInterpret;
+
+import java.util.function.Predicate;
+
+import diceTools.DenseDicePool;
+import diceTools.DiceNumber;
+import diceTools.DicePoolMap;
+import diceTools.DiceRollMap;
+import diceTools.function.KeepN;
+
+/**
+ * {@link Deferred} {@link DicePoolMap} of a roll of identical dice,
+ * from which the highest or lowest dice may have been kept.
+ * <p>When it is {@link #flatten() flattened}, the sum of the kept dice of unbiased dice is calculated directly by
+ * {@link DiceRollMap#keepHighest(int, int, int)} or {@link DiceRollMap#keepLowest(int, int, int)},
+ * so the combinations of the roll are never enumerated.
+ * <p>The dice may be {@link #reroll(Predicate, int) rerolled} before any keep is applied, which only
+ * adjusts the <code>DiceRollMap</code> of a single die. The sum of every die is then found by
+ * {@link DiceRollMap#sumOf(int)}, and the pool by {@link DicePoolMap#diceRoll(int, DiceRollMap)}.
+ * <p>When the kept dice of unbiased dice are {@link #resolve() resolved}, the dice are kept from
+ * a {@link DenseDicePool}, so a key is only made for each combination of the kept dice.
+ *
+ * @author kieran
+ */
+public final class DeferredDicePool implements Deferred
+{
+	/**
+	 * Number of dice rolled
+	 */
+	private final int numDice;
+	
+	/**
+	 * Number of sides on the dice
+	 */
+	private final int sides;
+	
+	/**
+	 * Whether only some of the dice are kept
+	 */
+	private final boolean kept;
+	
+	/**
+	 * Number of dice kept, if <code>kept</code>
+	 */
+	private final int nKeep;
+	
+	/**
+	 * Whether the highest dice are kept rather than the lowest, if <code>kept</code>
+	 */
+	private final boolean highest;
+	
+	/**
+	 * <code>DiceRollMap</code> of a single die, or <code>null</code> if the dice are unbiased
+	 */
+	private final DiceRollMap die;
+	
+	/**
+	 * Resolved <code>DicePoolMap</code>, or <code>null</code> if it has not yet been resolved
+	 */
+	private DicePoolMap resolved = null;
+	
+	/**
+	 * Constructs a <code>DeferredDicePool</code>
+	 * @param numDice	number of dice rolled
+	 * @param sides		number of sides on the dice
+	 * @param kept		whether only some of the dice are kept
+	 * @param nKeep		number of dice kept, if <code>kept</code>
+	 * @param highest	whether the highest dice are kept rather than the lowest, if <code>kept</code>
+	 * @param die		<code>DiceRollMap</code> of a single die, or <code>null</code> if the dice are unbiased
+	 */
+	private DeferredDicePool(int numDice, int sides, boolean kept, int nKeep, boolean highest, DiceRollMap die)
+	{
+		this.numDice = numDice;
+		this.sides = sides;
+		this.kept = kept;
+		this.nKeep = nKeep;
+		this.highest = highest;
+		this.die = die;
+	}
+	
+	/**
+	 * Create a <code>DeferredDicePool</code> of a roll of identical unbiased dice
+	 * @param numDice	number of dice to be rolled
+	 * @param sides		number of sides on the dice
+	 * @return			<code>DeferredDicePool</code> which resolves to
+	 * 					{@link DicePoolMap#diceRoll(int, int) DicePoolMap.diceRoll(numDice, sides)}
+	 */
+	public static DeferredDicePool diceRoll(int numDice, int sides)
+	{
+		return new DeferredDicePool(numDice, sides, false, 0, false, null);
+	}
+	
+	/**
+	 * Check whether a keep has already been applied
+	 * @return		<code>true</code> if only some of the dice are kept
+	 */
+	public boolean isKept()
+	{
+		return kept;
+	}
+	
+	/**
+	 * Reroll each die up to a number of times while its roll is one which should be rerolled
+	 * @param rerolled	<code>Predicate</code> which is true for rolls which are rerolled
+	 * @param times		maximum number of rerolls of each die
+	 * @return			new <code>DeferredDicePool</code> of the rerolled dice
+	 * @throws IllegalStateException if a keep has already been applied
+	 * @see DiceRollMap#reroll(Predicate, int)
+	 */
+	public DeferredDicePool reroll(Predicate<? super DiceNumber> rerolled, int times)
+	{
+		if (kept)
+			throw new IllegalStateException("Cannot reroll the dice of a DeferredDicePool after a keep has been applied");
+		
+		return new DeferredDicePool(numDice, sides, false, 0, false, getDie().reroll(rerolled, times));
+	}
+	
+	/**
+	 * Reroll each die until its roll is one which is kept
+	 * @param kept	<code>Predicate</code> which is true for rolls which are kept
+	 * @return		new <code>DeferredDicePool</code> of the rerolled dice
+	 * @throws IllegalStateException if a keep has already been applied
+	 * @throws IllegalArgumentException if no roll of a die is kept
+	 * @see DiceRollMap#condition(Predicate)
+	 */
+	public DeferredDicePool condition(Predicate<? super DiceNumber> kept)
+	{
+		if (this.kept)
+			throw new IllegalStateException("Cannot reroll the dice of a DeferredDicePool after a keep has been applied");
+		
+		final DiceRollMap conditioned = getDie().condition(kept);
+		
+		if (conditioned.isEmpty())
+			throw new IllegalArgumentException("Every roll of the die is rerolled, so it would be rerolled forever");
+		
+		return new DeferredDicePool(numDice, sides, false, 0, false, conditioned);
+	}
+	
+	/**
+	 * Get the <code>DiceRollMap</code> of a single die
+	 * @return		<code>DiceRollMap</code> of a single die
+	 */
+	private DiceRollMap getDie()
+	{
+		return (die == null) ? DiceRollMap.diceRoll(1, sides) : die;
+	}
+	
+	/**
+	 * Keep the highest dice of the roll
+	 * @param n		number of dice to keep
+	 * @return		new <code>DeferredDicePool</code> of the kept dice
+	 * @throws IllegalStateException if a keep has already been applied
+	 */
+	public DeferredDicePool keepHighest(int n)
+	{
+		if (kept)
+			throw new IllegalStateException("A keep has already been applied to this DeferredDicePool");
+		
+		return new DeferredDicePool(numDice, sides, true, n, true, die);
+	}
+	
+	/**
+	 * Keep the lowest dice of the roll
+	 * @param n		number of dice to keep
+	 * @return		new <code>DeferredDicePool</code> of the kept dice
+	 * @throws IllegalStateException if a keep has already been applied
+	 */
+	public DeferredDicePool keepLowest(int n)
+	{
+		if (kept)
+			throw new IllegalStateException("A keep has already been applied to this DeferredDicePool");
+		
+		return new DeferredDicePool(numDice, sides, true, n, false, die);
+	}
+	
+	/**
+	 * Sum the kept dice without resolving the <code>DicePoolMap</code>,
+	 * unless only some of the dice are kept after they have been rerolled
+	 * @return		<code>DiceRollMap</code> of the sum of the kept dice
+	 * @see DicePoolMap#flatten()
+	 */
+	public DiceRollMap flatten()
+	{
+		if (die != null)
+			return kept ? resolve().flatten() : die.sumOf(numDice);
+		
+		if (!kept)
+			return DiceRollMap.diceRoll(numDice, sides);
+		
+		if (highest)
+			return DiceRollMap.keepHighest(numDice, sides, nKeep);
+		
+		return DiceRollMap.keepLowest(numDice, sides, nKeep);
+	}
+	
+	/**
+	 * Count the dice which roll at least a threshold without resolving the <code>DicePoolMap</code>.
+	 * The count is binomially distributed, so is calculated directly by
+	 * {@link DiceRollMap#countAtLeast(int, DiceRollMap, DiceNumber...)}.
+	 * @param threshold	lowest roll which is counted
+	 * @return			<code>DiceRollMap</code> of the number of dice counted
+	 * @throws IllegalStateException if a keep has been applied
+	 */
+	public DiceRollMap countAtLeast(DiceNumber threshold)
+	{
+		if (kept)
+			throw new IllegalStateException("Cannot count the dice of a DeferredDicePool after a keep has been applied");
+		
+		return DiceRollMap.countAtLeast(numDice, getDie(), threshold);
+	}
+	
+	@Override
+	public DicePoolMap resolve()
+	{
+		if (resolved == null && kept && die == null && numDice > 0 && nKeep >= 0)
+		{
+			try
+			{
+				final DenseDicePool pool = DenseDicePool.diceRoll(numDice, sides);
+				resolved = (highest ? pool.keepHighest(nKeep) : pool.keepLowest(nKeep)).toDicePoolMap();
+			}
+			catch (IllegalArgumentException e)
+			{
+				//Too many combinations to rank in an array, so they are kept one key at a time
+			}
+		}
+		
+		if (resolved == null)
+		{
+			DicePoolMap pool = (die == null) ? DicePoolMap.diceRoll(numDice, sides) : DicePoolMap.diceRoll(numDice, die);
+			
+			if (kept)
+				pool = (DicePoolMap) pool.morph(highest ? KeepN.keepHighestN(nKeep) : KeepN.keepLowestN(nKeep));
+			
+			resolved = pool;
+		}
+		
+		return resolved;
+	}
+	
+	@Override
+	public String toString()
+	{
+		final String dice = (die == null) ? String.format("%dD%d", numDice, sides) : String.format("%d x %s", numDice, die);
+		
+		if (kept)
+			return String.format("Deferred(%s %s %d)", dice, highest ? "H" : "L", nKeep);
+		
+		return String.format("Deferred(%s)", dice);
+	}
+}
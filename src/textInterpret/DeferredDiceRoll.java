@@ -0,0 +1,78 @@
+package textInterpret;
+
+import diceTools.DiceRollMap;
+
+/**
+ * {@link Deferred} {@link DiceRollMap} of the sum of a roll of identical dice.
+ * <p>The dice are held as a {@link DeferredDicePool}, so that operators such as a reroll
+ * can adjust each die before the sum is taken. All other operators receive the sum.
+ *
+ * @author kieran
+ */
+public final class DeferredDiceRoll implements Deferred
+{
+	/**
+	 * Pool of the dice which are summed
+	 */
+	private final DeferredDicePool pool;
+	
+	/**
+	 * Resolved <code>DiceRollMap</code>, or <code>null</code> if it has not yet been resolved
+	 */
+	private DiceRollMap resolved = null;
+	
+	/**
+	 * Constructs a <code>DeferredDiceRoll</code>
+	 * @param pool	pool of the dice which are summed
+	 */
+	private DeferredDiceRoll(DeferredDicePool pool)
+	{
+		this.pool = pool;
+	}
+	
+	/**
+	 * Create a <code>DeferredDiceRoll</code> of the sum of a pool of dice
+	 * @param pool	pool of the dice which are summed
+	 * @return		<code>DeferredDiceRoll</code> which resolves to {@link DeferredDicePool#flatten() pool.flatten()}
+	 */
+	public static DeferredDiceRoll of(DeferredDicePool pool)
+	{
+		return new DeferredDiceRoll(pool);
+	}
+	
+	/**
+	 * Create a <code>DeferredDiceRoll</code> of the sum of a roll of identical unbiased dice
+	 * @param numDice	number of dice to be rolled
+	 * @param sides		number of sides on the dice
+	 * @return			<code>DeferredDiceRoll</code> which resolves to
+	 * 					{@link DiceRollMap#diceRoll(int, int) DiceRollMap.diceRoll(numDice, sides)}
+	 */
+	public static DeferredDiceRoll diceRoll(int numDice, int sides)
+	{
+		return new DeferredDiceRoll(DeferredDicePool.diceRoll(numDice, sides));
+	}
+	
+	/**
+	 * Get the pool of the dice which are summed
+	 * @return		<code>DeferredDicePool</code> of the dice
+	 */
+	public DeferredDicePool getPool()
+	{
+		return pool;
+	}
+	
+	@Override
+	public DiceRollMap resolve()
+	{
+		if (resolved == null)
+			resolved = pool.flatten();
+		
+		return resolved;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("Deferred(sum of %s)", pool);
+	}
+}
@@ -0,0 +1,63 @@
+package textInterpret;
+
+import java.util.function.UnaryOperator;
+
+import diceTools.DiceNumber;
+import diceTools.DiceRollMap;
+import diceTools.MorphView;
+
+/**
+ * {@link Deferred} {@link DiceRollMap} built by applying a chain of key transforms to a <code>DiceRollMap</code>.
+ * The transforms are composed in a {@link MorphView}, and applied in a single merge pass when resolved.
+ * 
+ * @author kieran
+ */
+public final class DeferredRollMap implements Deferred
+{
+	/**
+	 * View holding the source <code>DiceRollMap</code> and the composed transforms
+	 */
+	private final MorphView<DiceNumber, DiceNumber> view;
+	
+	/**
+	 * Constructs a <code>DeferredRollMap</code> from a view
+	 * @param view	view holding the source <code>DiceRollMap</code> and the composed transforms
+	 */
+	private DeferredRollMap(MorphView<DiceNumber, DiceNumber> view)
+	{
+		this.view = view;
+	}
+	
+	/**
+	 * Create a <code>DeferredRollMap</code> which applies a transform to the keys of a <code>DiceRollMap</code>
+	 * @param drm	<code>DiceRollMap</code> to transform
+	 * @param f		rule for mapping keys
+	 * @return		<code>DeferredRollMap</code> which resolves to the morphed <code>DiceRollMap</code>
+	 */
+	public static DeferredRollMap morph(DiceRollMap drm, UnaryOperator<DiceNumber> f)
+	{
+		return new DeferredRollMap(MorphView.of(drm).morph(f));
+	}
+	
+	/**
+	 * Compose a further transform onto the keys
+	 * @param f		rule for mapping keys, applied after the existing transforms
+	 * @return		new <code>DeferredRollMap</code> with <code>f</code> composed onto the chain
+	 */
+	public DeferredRollMap morph(UnaryOperator<DiceNumber> f)
+	{
+		return new DeferredRollMap(view.morph(f));
+	}
+	
+	@Override
+	public DiceRollMap resolve()
+	{
+		return (DiceRollMap) view.materialize();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("Deferred(%s)", view.toString());
+	}
+}
@@ -13,17 +13,27 @@ import diceTools.ImmutableList;
 import textInterpret.function.DicePoolFunc;
 import textInterpret.function.DiceRollFunc;
 import textInterpret.infix.AddInfix;
+import textInterpret.infix.BestInfix;
 import textInterpret.infix.CombineInfix;
+import textInterpret.infix.CountInfix;
 import textInterpret.infix.DicePoolInfix;
 import textInterpret.infix.DiceRollInfix;
 import textInterpret.infix.DivideInfix;
+import textInterpret.infix.EqualInfix;
+import textInterpret.infix.GreaterInfix;
 import textInterpret.infix.KeepHighestInfix;
 import textInterpret.infix.KeepLowestInfix;
 import textInterpret.infix.KeyValueInfix;
+import textInterpret.infix.LessInfix;
+import textInterpret.infix.MaxInfix;
+import textInterpret.infix.MinInfix;
 import textInterpret.infix.ModuloInfix;
 import textInterpret.infix.MultiplyInfix;
 import textInterpret.infix.PowerInfix;
+import textInterpret.infix.RerollAlwaysInfix;
+import textInterpret.infix.RerollOnceInfix;
 import textInterpret.infix.SubtractInfix;
+import textInterpret.infix.WorstInfix;
 import textInterpret.unary.FloaterUnary;
 import textInterpret.unary.FloorUnary;
 import textInterpret.unary.InterUnary;
@@ -64,17 +74,27 @@ public class TextInterpret
 		infixOperators = new LinkedList<PriorityEntry<? extends TokenInfix>>();
 		
 		infixOperators.add(new PriorityEntry<TokenInfix>(new KeyValueInfix(),		0));
-		infixOperators.add(new PriorityEntry<TokenInfix>(new AddInfix(),			1));
-		infixOperators.add(new PriorityEntry<TokenInfix>(new SubtractInfix(),		1));
-		infixOperators.add(new PriorityEntry<TokenInfix>(new DivideInfix(),			2));
-		infixOperators.add(new PriorityEntry<TokenInfix>(new MultiplyInfix(),		2));
-		infixOperators.add(new PriorityEntry<TokenInfix>(new ModuloInfix(),			3));
-		infixOperators.add(new PriorityEntry<TokenInfix>(new PowerInfix(),			4));
-		infixOperators.add(new PriorityEntry<TokenInfix>(new CombineInfix(),		5));
-		infixOperators.add(new PriorityEntry<TokenInfix>(new KeepHighestInfix(),	6));
-		infixOperators.add(new PriorityEntry<TokenInfix>(new KeepLowestInfix(),		6));
-		infixOperators.add(new PriorityEntry<TokenInfix>(new DiceRollInfix(),		7));
-		infixOperators.add(new PriorityEntry<TokenInfix>(new DicePoolInfix(),		7));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new GreaterInfix(),		1));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new LessInfix(),			1));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new EqualInfix(),			1));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new MaxInfix(),			2));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new MinInfix(),			2));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new AddInfix(),			3));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new SubtractInfix(),		3));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new DivideInfix(),			4));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new MultiplyInfix(),		4));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new ModuloInfix(),			5));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new PowerInfix(),			6));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new CombineInfix(),		7));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new KeepHighestInfix(),	8));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new KeepLowestInfix(),		8));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new CountInfix(),			8));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new BestInfix(),			8));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new WorstInfix(),			8));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new RerollOnceInfix(),		8));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new RerollAlwaysInfix(),	8));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new DiceRollInfix(),		9));
+		infixOperators.add(new PriorityEntry<TokenInfix>(new DicePoolInfix(),		9));
 		
 		funcOperators = new LinkedList<TokenFunc>();
 		
@@ -87,7 +87,8 @@ public class Token
 	}
 	
 	/**
-	 * Return the variable stored by the <code>Token</code>
+	 * Return the variable stored by the <code>Token</code>,
+	 * {@link Deferred#resolve() resolving} it if it is {@link Deferred}
 	 * 
 	 * @return the stored variable
 	 * @throws TokenTypeMismatchException if the <code>Token</code> is not of type {@link TokenType#VAR}
@@ -99,6 +100,20 @@ public class Token
 				getClass().getName()));
 	}
 	
+	/**
+	 * Return the variable stored by the <code>Token</code> without resolving it,
+	 * so that it may be {@link Deferred}
+	 * 
+	 * @return the stored variable
+	 * @throws TokenTypeMismatchException if the <code>Token</code> is not of type {@link TokenType#VAR}
+	 * @see Token.VarToken
+	 */
+	public Object getLazyVariable()
+	{
+		throw new TokenTypeMismatchException(String.format("getLazyVariable method not implemented by %s",
+				getClass().getName()));
+	}
+	
 	/**
 	 * Return the priority of the <code>Token</code>
 	 * 
@@ -276,6 +291,12 @@ public class Token
 		
 		@Override
 		public Object getVariable()
+		{
+			return Deferred.resolve(var);
+		}
+		
+		@Override
+		public Object getLazyVariable()
 		{
 			return var;
 		}
@@ -12,14 +12,27 @@ public abstract class TokenInfix implements BinaryOperator<Token>
 					getClass().getName(),
 					a == null ? (b == null ? "a, b" : "a") : ("b")));
 		
-		Object varA = a.getVariable();
-		Object varB = b.getVariable();
+		Object varA = a.getLazyVariable();
+		Object varB = b.getLazyVariable();
 		
-		Object varNew = operate(varA, varB);
+		Object varNew = operateDeferred(varA, varB);
 		
 		return new Token.VarToken(varNew);
 	}
 	
+	/**
+	 * Operate on variables which may be {@link Deferred}.
+	 * By default, the variables are resolved and passed to {@link #operate(Object, Object)}.
+	 * Subclasses which can build on <code>Deferred</code> variables without resolving them override this method.
+	 * @param objA	first variable, which may be <code>Deferred</code>
+	 * @param objB	second variable, which may be <code>Deferred</code>
+	 * @return		result of the operation, which may be <code>Deferred</code>
+	 */
+	public Object operateDeferred(Object objA, Object objB)
+	{
+		return operate(Deferred.resolve(objA), Deferred.resolve(objB));
+	}
+	
 	public abstract Object operate(Object objA, Object objB);
 	public abstract String getName();
 }
\ No newline at end of file
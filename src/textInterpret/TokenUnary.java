@@ -7,13 +7,25 @@ public abstract class TokenUnary implements UnaryOperator<Token>
 	@Override
 	public final Token apply(Token t)
 	{
-		Object variable = t.getVariable();
+		Object variable = t.getLazyVariable();
 		
-		variable = operate(variable);
+		variable = operateDeferred(variable);
 		
 		return new Token.VarToken(variable);
 	}
 	
+	/**
+	 * Operate on a variable which may be {@link Deferred}.
+	 * By default, the variable is resolved and passed to {@link #operate(Object)}.
+	 * Subclasses which can build on a <code>Deferred</code> variable without resolving it override this method.
+	 * @param obj	variable to operate on, which may be <code>Deferred</code>
+	 * @return		result of the operation, which may be <code>Deferred</code>
+	 */
+	public Object operateDeferred(Object obj)
+	{
+		return operate(Deferred.resolve(obj));
+	}
+	
 	public abstract Object operate(Object obj);
 	public abstract String getName();
 }
\ No newline at end of file
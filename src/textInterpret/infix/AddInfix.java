@@ -1,6 +1,7 @@
 package textInterpret.infix;
 
 import diceTools.DiceNumber;
+import diceTools.DiceRollMap;
 
 public class AddInfix extends NumericInfix
 {
@@ -14,6 +15,15 @@ public class AddInfix extends NumericInfix
 			return new DiceNumber.DiceDouble(a.doubleValue() + b.doubleValue());
 	}
 
+	@Override
+	public DiceRollMap operateCase(DiceRollMap drm1, DiceRollMap drm2)
+	{
+		if (drm1.isEmpty() || drm2.isEmpty())
+			return super.operateCase(drm1, drm2);
+		
+		return drm1.combine(drm2);
+	}
+	
 	@Override
 	public String getName()
 	{
@@ -0,0 +1,20 @@
+package textInterpret.infix;
+
+import diceTools.DiceRollMap;
+
+public class BestInfix extends RepeatInfix
+{
+	
+	@Override
+	public DiceRollMap choose(DiceRollMap roll, int repeats)
+	{
+		return roll.maxOf(repeats);
+	}
+	
+	@Override
+	public String getName()
+	{
+		return "best";
+	}
+	
+}
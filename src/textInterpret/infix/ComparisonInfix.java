@@ -0,0 +1,30 @@
+package textInterpret.infix;
+
+import diceTools.DiceRollMap;
+
+/**
+ * {@link RollInfix} comparing two independent rolls, producing a Bernoulli {@link DiceRollMap}
+ * with key <code>1</code> for true and <code>0</code> for false.
+ * <p>The comparison is made by {@link DiceRollMap#compareRolls(DiceRollMap)} in a single pass
+ * over the two rolls, rather than by combining every pair of outcomes.
+ * 
+ * @author kieran
+ */
+public abstract class ComparisonInfix extends RollInfix
+{
+	
+	@Override
+	public Object operate(Object objA, Object objB)
+	{
+		return compare(toRoll(objA, 1), toRoll(objB, 2));
+	}
+	
+	/**
+	 * Compare two independent rolls
+	 * @param a		first roll
+	 * @param b		second roll
+	 * @return		Bernoulli <code>DiceRollMap</code> of the comparison
+	 */
+	public abstract DiceRollMap compare(DiceRollMap a, DiceRollMap b);
+	
+}
@@ -0,0 +1,103 @@
+package textInterpret.infix;
+
+import java.util.Map.Entry;
+import java.util.function.Function;
+
+import diceTools.DiceNumber;
+import diceTools.DicePoolMap;
+import diceTools.DiceRollMap;
+import diceTools.function.Count;
+import textInterpret.Deferred;
+import textInterpret.DeferredDicePool;
+import textInterpret.TokenFuncInputTypeException;
+import textInterpret.TokenInfix;
+
+/**
+ * {@link TokenInfix} counting the dice of a roll which are at least a threshold.
+ * <p>The dice of a {@link DeferredDicePool} which has not been kept are identical, so their count is
+ * calculated from the probability that a single die succeeds, without enumerating the pool.
+ * A {@link DiceRollMap} is counted as a single die, and a {@link DiceRollMap} threshold is rolled
+ * independently of the dice being counted.
+ * 
+ * @author kieran
+ */
+public class CountInfix extends TokenInfix
+{
+	
+	/**
+	 * Count the dice of a {@link DeferredDicePool} without resolving it, if no keep has been applied
+	 */
+	@Override
+	public Object operateDeferred(Object objA, Object objB)
+	{
+		if (objA instanceof DeferredDicePool && !((DeferredDicePool) objA).isKept())
+		{
+			DeferredDicePool pool = (DeferredDicePool) objA;
+			Object b = Deferred.resolve(objB);
+			
+			if (b instanceof DiceNumber)
+				return pool.countAtLeast((DiceNumber) b);
+			else if (b instanceof DiceRollMap)
+				return mix((DiceRollMap) b, pool::countAtLeast);
+		}
+		
+		return super.operateDeferred(objA, objB);
+	}
+	
+	@Override
+	public Object operate(Object objA, Object objB)
+	{
+		if (objB instanceof DiceNumber)
+			return operateSingle(objA, (DiceNumber) objB);
+		else if (objB instanceof DiceRollMap)
+			return mix((DiceRollMap) objB, threshold -> operateSingle(objA, threshold));
+		else
+			throw new TokenFuncInputTypeException(String.format("The second argument to %s.operate must be of type %s or %s, not %s",
+					getClass().getName(), DiceNumber.class.getName(), DiceRollMap.class.getName(), objB.getClass().getName()));
+	}
+	
+	private DiceRollMap operateSingle(Object objA, DiceNumber threshold)
+	{
+		if (objA instanceof DicePoolMap)
+			return ((DicePoolMap) objA).flatten(Count.countAtLeast(threshold));
+		else if (objA instanceof DiceRollMap)
+			return DiceRollMap.countAtLeast(1, (DiceRollMap) objA, threshold);
+		else if (objA instanceof DiceNumber)
+		{
+			DiceRollMap roll = new DiceRollMap();
+			roll.put(DiceNumber.valueOf(((DiceNumber) objA).compareTo(threshold) >= 0 ? 1 : 0), 1.0);
+			return roll;
+		}
+		else
+			throw new TokenFuncInputTypeException(String.format("The first argument to %s.operate must be of type %s, %s or %s, not %s",
+					getClass().getName(), DicePoolMap.class.getName(), DiceRollMap.class.getName(), DiceNumber.class.getName(),
+					objA.getClass().getName()));
+	}
+	
+	/**
+	 * Count against a rolled threshold, weighting the count for each threshold by its probability
+	 * @param thresholds	<code>DiceRollMap</code> of the threshold
+	 * @param count			count for a fixed threshold
+	 * @return				<code>DiceRollMap</code> of the count
+	 */
+	private static DiceRollMap mix(DiceRollMap thresholds, Function<DiceNumber, DiceRollMap> count)
+	{
+		DiceRollMap outRoll = new DiceRollMap();
+		
+		for (Entry<DiceNumber, Double> entry : thresholds.entrySet())
+		{
+			final double prob = entry.getValue();
+			
+			count.apply(entry.getKey()).forEach((key, value) -> {outRoll.merge(key, value * prob);});
+		}
+		
+		return outRoll;
+	}
+	
+	@Override
+	public String getName()
+	{
+		return "#";
+	}
+	
+}
@@ -4,6 +4,8 @@ import java.util.List;
 
 import diceTools.DiceNumber;
 import diceTools.DicePoolMap;
+import textInterpret.Deferred;
+import textInterpret.DeferredDicePool;
 
 public class DicePoolInfix extends RollingInfix<List<? extends DiceNumber>>
 {
@@ -12,6 +14,22 @@ public class DicePoolInfix extends RollingInfix<List<? extends DiceNumber>>
 	{
 		super(new DicePoolMap());
 	}
+	
+	/**
+	 * Defer rolling a pool of identical dice, so that a keep followed by a flatten
+	 * can be calculated without enumerating the pool
+	 */
+	@Override
+	public Object operateDeferred(Object objA, Object objB)
+	{
+		Object a = Deferred.resolve(objA);
+		Object b = Deferred.resolve(objB);
+		
+		if (a instanceof DiceNumber && b instanceof DiceNumber && ((DiceNumber) a).isInt() && ((DiceNumber) b).isInt())
+			return DeferredDicePool.diceRoll(((DiceNumber) a).intValue(), ((DiceNumber) b).intValue());
+		
+		return operate(a, b);
+	}
 
 	@Override
 	public DicePoolMap operateCase(DiceNumber a, DiceNumber b)
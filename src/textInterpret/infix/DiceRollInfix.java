@@ -2,6 +2,8 @@ package textInterpret.infix;
 
 import diceTools.DiceNumber;
 import diceTools.DiceRollMap;
+import textInterpret.Deferred;
+import textInterpret.DeferredDiceRoll;
 
 public class DiceRollInfix extends RollingInfix<DiceNumber>
 {
@@ -10,6 +12,21 @@ public class DiceRollInfix extends RollingInfix<DiceNumber>
 	{
 		super(new DiceRollMap());
 	}
+	
+	/**
+	 * Defer rolling identical dice, so that a reroll can be applied to each die before they are summed
+	 */
+	@Override
+	public Object operateDeferred(Object objA, Object objB)
+	{
+		Object a = Deferred.resolve(objA);
+		Object b = Deferred.resolve(objB);
+		
+		if (a instanceof DiceNumber && b instanceof DiceNumber && ((DiceNumber) a).isInt() && ((DiceNumber) b).isInt())
+			return DeferredDiceRoll.diceRoll(((DiceNumber) a).intValue(), ((DiceNumber) b).intValue());
+		
+		return operate(a, b);
+	}
 
 	@Override
 	public DiceRollMap operateCase(DiceNumber a, DiceNumber b)
@@ -0,0 +1,29 @@
+package textInterpret.infix;
+
+import diceTools.DiceRollMap;
+
+/**
+ * {@link RollInfix} choosing the higher or lower of two independent rolls.
+ * <p>The choice is made by {@link DiceRollMap#max(DiceRollMap)} or {@link DiceRollMap#min(DiceRollMap)}
+ * in a single pass over the two rolls, rather than by combining every pair of outcomes.
+ * 
+ * @author kieran
+ */
+public abstract class ExtremeInfix extends RollInfix
+{
+	
+	@Override
+	public Object operate(Object objA, Object objB)
+	{
+		return choose(toRoll(objA, 1), toRoll(objB, 2));
+	}
+	
+	/**
+	 * Choose between two independent rolls
+	 * @param a		first roll
+	 * @param b		second roll
+	 * @return		<code>DiceRollMap</code> of the chosen roll
+	 */
+	public abstract DiceRollMap choose(DiceRollMap a, DiceRollMap b);
+	
+}
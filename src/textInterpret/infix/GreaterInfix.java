@@ -0,0 +1,20 @@
+package textInterpret.infix;
+
+import diceTools.DiceRollMap;
+
+public class GreaterInfix extends ComparisonInfix
+{
+	
+	@Override
+	public DiceRollMap compare(DiceRollMap a, DiceRollMap b)
+	{
+		return a.greaterThan(b);
+	}
+	
+	@Override
+	public String getName()
+	{
+		return ">";
+	}
+	
+}
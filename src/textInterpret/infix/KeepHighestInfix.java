@@ -5,6 +5,7 @@ import java.util.function.Function;
 
 import diceTools.DiceNumber;
 import diceTools.function.KeepN;
+import textInterpret.DeferredDicePool;
 
 public class KeepHighestInfix extends ListModInfix
 {
@@ -15,6 +16,12 @@ public class KeepHighestInfix extends ListModInfix
 		return KeepN.keepHighestN(intMod);
 	}
 
+	@Override
+	public DeferredDicePool keep(DeferredDicePool pool, int intMod)
+	{
+		return pool.keepHighest(intMod);
+	}
+	
 	@Override
 	public String getName()
 	{
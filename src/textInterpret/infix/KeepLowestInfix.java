@@ -5,6 +5,7 @@ import java.util.function.Function;
 
 import diceTools.DiceNumber;
 import diceTools.function.KeepN;
+import textInterpret.DeferredDicePool;
 
 public class KeepLowestInfix extends ListModInfix
 {
@@ -15,6 +16,12 @@ public class KeepLowestInfix extends ListModInfix
 		return KeepN.keepLowestN(intMod);
 	}
 
+	@Override
+	public DeferredDicePool keep(DeferredDicePool pool, int intMod)
+	{
+		return pool.keepLowest(intMod);
+	}
+	
 	@Override
 	public String getName()
 	{
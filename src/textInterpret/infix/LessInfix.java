@@ -0,0 +1,20 @@
+package textInterpret.infix;
+
+import diceTools.DiceRollMap;
+
+public class LessInfix extends ComparisonInfix
+{
+	
+	@Override
+	public DiceRollMap compare(DiceRollMap a, DiceRollMap b)
+	{
+		return a.lessThan(b);
+	}
+	
+	@Override
+	public String getName()
+	{
+		return "<";
+	}
+	
+}
@@ -7,12 +7,31 @@ import java.util.function.Function;
 import diceTools.DiceNumber;
 import diceTools.DicePoolMap;
 import diceTools.DiceRollMap;
+import textInterpret.Deferred;
+import textInterpret.DeferredDicePool;
 import textInterpret.TokenFuncInputTypeException;
 import textInterpret.TokenInfix;
 
 public abstract class ListModInfix extends TokenInfix
 {
 	
+	/**
+	 * Apply a keep to a {@link DeferredDicePool} without resolving it, if no keep has been applied yet
+	 */
+	@Override
+	public Object operateDeferred(Object objA, Object objB)
+	{
+		if (objA instanceof DeferredDicePool && !((DeferredDicePool) objA).isKept())
+		{
+			Object b = Deferred.resolve(objB);
+			
+			if (b instanceof DiceNumber)
+				return keep((DeferredDicePool) objA, ((DiceNumber) b).intValue());
+		}
+		
+		return super.operateDeferred(objA, objB);
+	}
+	
 	@Override
 	public Object operate(Object objA, Object objB)
 	{
@@ -62,4 +81,12 @@ public abstract class ListModInfix extends TokenInfix
 	
 	public abstract Function<? super List<? extends DiceNumber>, List<DiceNumber>> listMod(int intMod);
 	
+	/**
+	 * Apply the equivalent of {@link #listMod(int)} to a {@link DeferredDicePool}
+	 * @param pool		pool to which no keep has been applied
+	 * @param intMod	number of dice to keep
+	 * @return			<code>DeferredDicePool</code> of the kept dice
+	 */
+	public abstract DeferredDicePool keep(DeferredDicePool pool, int intMod);
+	
 }
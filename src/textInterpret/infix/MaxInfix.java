@@ -0,0 +1,20 @@
+package textInterpret.infix;
+
+import diceTools.DiceRollMap;
+
+public class MaxInfix extends ExtremeInfix
+{
+	
+	@Override
+	public DiceRollMap choose(DiceRollMap a, DiceRollMap b)
+	{
+		return a.max(b);
+	}
+	
+	@Override
+	public String getName()
+	{
+		return "max";
+	}
+	
+}
@@ -0,0 +1,20 @@
+package textInterpret.infix;
+
+import diceTools.DiceRollMap;
+
+public class MinInfix extends ExtremeInfix
+{
+	
+	@Override
+	public DiceRollMap choose(DiceRollMap a, DiceRollMap b)
+	{
+		return a.min(b);
+	}
+	
+	@Override
+	public String getName()
+	{
+		return "min";
+	}
+	
+}
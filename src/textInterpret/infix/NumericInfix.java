@@ -6,6 +6,8 @@ import java.util.function.UnaryOperator;
 import diceTools.DiceNumber;
 import diceTools.DicePoolMap;
 import diceTools.DiceRollMap;
+import textInterpret.DeferredDiceRoll;
+import textInterpret.DeferredRollMap;
 
 public abstract class NumericInfix extends ArgSortedInfix
 {
@@ -18,6 +20,45 @@ public abstract class NumericInfix extends ArgSortedInfix
 	
 	@Override
 	public abstract DiceNumber operateCase(DiceNumber a, DiceNumber b);
+	
+	/**
+	 * Defers operating on a {@link DiceRollMap} and a {@link DiceNumber}, composing the operation
+	 * onto any operations already deferred, so that chains of operations are applied in a single pass.
+	 * A {@link DeferredDiceRoll} is summed first.
+	 */
+	@Override
+	public Object operateDeferred(Object objA, Object objB)
+	{
+		if (objA instanceof DeferredDiceRoll)
+			objA = ((DeferredDiceRoll) objA).resolve();
+		
+		if (objB instanceof DeferredDiceRoll)
+			objB = ((DeferredDiceRoll) objB).resolve();
+		
+		if (objB instanceof DiceNumber)
+		{
+			final DiceNumber n = (DiceNumber) objB;
+			
+			if (objA instanceof DiceRollMap)
+				return DeferredRollMap.morph((DiceRollMap) objA, (arg) -> {return operateCase(arg, n);});
+			
+			if (objA instanceof DeferredRollMap)
+				return ((DeferredRollMap) objA).morph((arg) -> {return operateCase(arg, n);});
+		}
+		
+		if (objA instanceof DiceNumber)
+		{
+			final DiceNumber n = (DiceNumber) objA;
+			
+			if (objB instanceof DiceRollMap)
+				return DeferredRollMap.morph((DiceRollMap) objB, (arg) -> {return operateCase(n, arg);});
+			
+			if (objB instanceof DeferredRollMap)
+				return ((DeferredRollMap) objB).morph((arg) -> {return operateCase(n, arg);});
+		}
+		
+		return super.operateDeferred(objA, objB);
+	}
 
 	@Override
 	public DiceRollMap operateCase(DicePoolMap dpm1, DicePoolMap dpm2)
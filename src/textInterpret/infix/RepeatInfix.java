@@ -0,0 +1,65 @@
+package textInterpret.infix;
+
+import java.util.Map.Entry;
+
+import diceTools.DiceNumber;
+import diceTools.DicePoolMap;
+import diceTools.DiceRollMap;
+import textInterpret.TokenFuncInputTypeException;
+
+/**
+ * {@link RollInfix} choosing the highest or lowest of a number of independent repeats of a roll.
+ * <p>The roll to repeat is the first argument and the number of repeats is the second, as in <code>(2d6)best3</code>.
+ * A number is only ever chosen from a fixed number of repeats, so a number followed by a roll,
+ * as in <code>3best(2d6)</code>, is rejected as having its arguments the wrong way round.
+ * <p>The choice is made by {@link DiceRollMap#maxOf(int)} or {@link DiceRollMap#minOf(int)}
+ * from the cumulative probabilities of a single roll, so the repeats are never combined.
+ * A {@link DiceRollMap} number of repeats is rolled independently of the repeats.
+ * 
+ * @author kieran
+ */
+public abstract class RepeatInfix extends RollInfix
+{
+	
+	/**
+	 * @throws TokenFuncInputTypeException if <code>objA</code> is a {@link DiceNumber}
+	 * 			and <code>objB</code> is a roll, which would repeat the number a rolled number of times
+	 */
+	@Override
+	public Object operate(Object objA, Object objB)
+	{
+		if (objA instanceof DiceNumber && (objB instanceof DiceRollMap || objB instanceof DicePoolMap))
+			throw new TokenFuncInputTypeException(String.format("%s takes the roll to repeat first and the number of repeats second, "
+					+ "as in (2d6)%s3, so cannot repeat the number %s", getName(), getName(), objA));
+		
+		DiceRollMap roll = toRoll(objA, 1);
+		
+		if (objB instanceof DiceNumber)
+			return choose(roll, ((DiceNumber) objB).intValue());
+		else if (objB instanceof DiceRollMap)
+		{
+			DiceRollMap outRoll = new DiceRollMap();
+			
+			for (Entry<DiceNumber, Double> entry : ((DiceRollMap) objB).entrySet())
+			{
+				final double prob = entry.getValue();
+				
+				choose(roll, entry.getKey().intValue()).forEach((key, value) -> {outRoll.merge(key, value * prob);});
+			}
+			
+			return outRoll;
+		}
+		else
+			throw new TokenFuncInputTypeException(String.format("The second argument to %s.operate must be of type %s or %s, not %s",
+					getClass().getName(), DiceNumber.class.getName(), DiceRollMap.class.getName(), objB.getClass().getName()));
+	}
+	
+	/**
+	 * Choose between independent repeats of a roll
+	 * @param roll		roll to repeat
+	 * @param repeats	number of repeats
+	 * @return			<code>DiceRollMap</code> of the chosen repeat
+	 */
+	public abstract DiceRollMap choose(DiceRollMap roll, int repeats);
+	
+}
@@ -0,0 +1,38 @@
+package textInterpret.infix;
+
+import java.util.function.Predicate;
+
+import diceTools.DiceNumber;
+import diceTools.DiceRollMap;
+import textInterpret.DeferredDicePool;
+
+public class RerollAlwaysInfix extends RerollInfix
+{
+	
+	/**
+	 * @throws IllegalArgumentException if every roll of the die is rerolled
+	 */
+	@Override
+	public DiceRollMap reroll(DiceRollMap die, Predicate<DiceNumber> rerolled)
+	{
+		DiceRollMap roll = die.condition(rerolled.negate());
+		
+		if (roll.isEmpty())
+			throw new IllegalArgumentException("Every roll of the die is rerolled, so it would be rerolled forever");
+		
+		return roll;
+	}
+	
+	@Override
+	public DeferredDicePool reroll(DeferredDicePool pool, Predicate<DiceNumber> rerolled)
+	{
+		return pool.condition(rerolled.negate());
+	}
+	
+	@Override
+	public String getName()
+	{
+		return "rr";
+	}
+	
+}
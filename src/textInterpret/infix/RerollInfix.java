@@ -0,0 +1,214 @@
+package textInterpret.infix;
+
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import diceTools.DiceNumber;
+import diceTools.DicePoolMap;
+import diceTools.DiceRollMap;
+import textInterpret.Deferred;
+import textInterpret.DeferredDicePool;
+import textInterpret.DeferredDiceRoll;
+import textInterpret.TokenFuncInputTypeException;
+import textInterpret.TokenInfix;
+
+/**
+ * {@link TokenInfix} rerolling each die whose roll is at most a threshold.
+ * <p>Only the {@link DiceRollMap} of a single die is adjusted, so the dice of a {@link DeferredDicePool},
+ * or of the {@link DeferredDiceRoll} summed from one, are rerolled without resolving it.
+ * A resolved {@link DicePoolMap} is rerolled die by die if its dice are identical and independent,
+ * which is not the case once a keep has been applied. A <code>DiceRollMap</code> is rerolled as a single die.
+ * A {@link DiceRollMap} threshold is rolled once, independently of the dice being rerolled.
+ *
+ * @author kieran
+ */
+public abstract class RerollInfix extends TokenInfix
+{
+	
+	/**
+	 * Largest difference in probability for which a pool is considered to be of identical independent dice
+	 */
+	private static final double IDENTICAL_TOLERANCE = 1e-9;
+	
+	/**
+	 * Reroll the dice of a {@link DeferredDicePool} or {@link DeferredDiceRoll} without resolving it
+	 * @throws TokenFuncInputTypeException if a keep has been applied to the pool
+	 */
+	@Override
+	public Object operateDeferred(Object objA, Object objB)
+	{
+		final Object b = Deferred.resolve(objB);
+		
+		if (b instanceof DiceNumber)
+		{
+			final Predicate<DiceNumber> rerolled = atMost((DiceNumber) b);
+			
+			if (objA instanceof DeferredDiceRoll)
+				return DeferredDiceRoll.of(reroll(((DeferredDiceRoll) objA).getPool(), rerolled));
+			
+			if (objA instanceof DeferredDicePool)
+			{
+				if (((DeferredDicePool) objA).isKept())
+					throw keptException();
+				
+				return reroll((DeferredDicePool) objA, rerolled);
+			}
+		}
+		else if (b instanceof DiceRollMap && objA instanceof Deferred)
+			return mix((DiceRollMap) b, threshold -> Deferred.resolve(operateDeferred(objA, threshold)));
+		
+		return operate(Deferred.resolve(objA), b);
+	}
+	
+	@Override
+	public Object operate(Object objA, Object objB)
+	{
+		if (objB instanceof DiceRollMap)
+			return mix((DiceRollMap) objB, threshold -> operate(objA, threshold));
+		
+		if (!(objB instanceof DiceNumber))
+			throw new TokenFuncInputTypeException(String.format("The second argument to %s.operate must be of type %s or %s, not %s",
+					getClass().getName(), DiceNumber.class.getName(), DiceRollMap.class.getName(), objB.getClass().getName()));
+		
+		final Predicate<DiceNumber> rerolled = atMost((DiceNumber) objB);
+		
+		if (objA instanceof DicePoolMap)
+			return reroll((DicePoolMap) objA, rerolled);
+		else if (objA instanceof DiceRollMap)
+			return reroll((DiceRollMap) objA, rerolled);
+		else if (objA instanceof DiceNumber)
+		{
+			DiceRollMap roll = new DiceRollMap();
+			roll.put((DiceNumber) objA, 1.0);
+			return reroll(roll, rerolled);
+		}
+		else
+			throw new TokenFuncInputTypeException(String.format("The first argument to %s.operate must be of type %s, %s or %s, not %s",
+					getClass().getName(), DicePoolMap.class.getName(), DiceRollMap.class.getName(), DiceNumber.class.getName(),
+					objA.getClass().getName()));
+	}
+	
+	/**
+	 * Reroll each die of a resolved pool of identical independent dice
+	 * @param pool		pool to reroll
+	 * @param rerolled	<code>Predicate</code> which is true for rolls which are rerolled
+	 * @return			<code>DicePoolMap</code> of the rerolled dice
+	 * @throws TokenFuncInputTypeException if the dice of <code>pool</code> are not identical and independent
+	 */
+	private DicePoolMap reroll(DicePoolMap pool, Predicate<DiceNumber> rerolled)
+	{
+		if (pool.isEmpty() || pool.firstKey().isEmpty())
+			return pool;
+		
+		final DiceRollMap die = identicalDie(pool);
+		
+		if (die == null)
+			throw keptException();
+		
+		return DicePoolMap.diceRoll(pool.firstKey().size(), reroll(die, rerolled));
+	}
+	
+	/**
+	 * Find the die of a pool of identical independent dice.
+	 * The die is the average of the dice of the pool, which is then compared with the pool of that die.
+	 * @param pool	non-empty pool of at least one die
+	 * @return		<code>DiceRollMap</code> of a single die, or <code>null</code> if the dice of
+	 * 				<code>pool</code> are not identical and independent
+	 */
+	private static DiceRollMap identicalDie(DicePoolMap pool)
+	{
+		final int numDice = pool.firstKey().size();
+		final double mass = pool.getMass();
+		DiceRollMap die = new DiceRollMap();
+		
+		for (Entry<List<? extends DiceNumber>, Double> entry : pool.entrySet())
+		{
+			if (entry.getKey().size() != numDice)
+				return null;
+			
+			final double prob = entry.getValue() / (numDice * mass);
+			
+			for (DiceNumber roll : entry.getKey())
+				die.merge(roll, prob);
+		}
+		
+		final DicePoolMap expected = DicePoolMap.diceRoll(numDice, die);
+		
+		if (expected.size() != pool.size())
+			return null;
+		
+		for (Entry<List<? extends DiceNumber>, Double> entry : pool.entrySet())
+		{
+			final Double prob = expected.get(entry.getKey());
+			
+			if (prob == null || Math.abs(prob - entry.getValue() / mass) > IDENTICAL_TOLERANCE)
+				return null;
+		}
+		
+		return die;
+	}
+	
+	/**
+	 * Reroll against a rolled threshold, weighting the reroll for each threshold by its probability
+	 * @param thresholds	<code>DiceRollMap</code> of the threshold
+	 * @param reroll		reroll for a fixed threshold, giving a <code>DiceRollMap</code> or a <code>DicePoolMap</code>
+	 * @return				<code>DiceRollMap</code> or <code>DicePoolMap</code> of the rerolled dice
+	 */
+	private static Object mix(DiceRollMap thresholds, Function<DiceNumber, Object> reroll)
+	{
+		DiceRollMap outRoll = new DiceRollMap();
+		DicePoolMap outPool = new DicePoolMap();
+		
+		for (Entry<DiceNumber, Double> entry : thresholds.entrySet())
+		{
+			final double prob = entry.getValue();
+			final Object roll = reroll.apply(entry.getKey());
+			
+			if (roll instanceof DicePoolMap)
+				((DicePoolMap) roll).forEach((key, value) -> {outPool.merge(key, value * prob);});
+			else
+				((DiceRollMap) roll).forEach((key, value) -> {outRoll.merge(key, value * prob);});
+		}
+		
+		return outPool.isEmpty() ? outRoll : outPool;
+	}
+	
+	/**
+	 * Create the exception thrown when the dice to be rerolled are not identical and independent
+	 * @return		<code>TokenFuncInputTypeException</code> explaining that a reroll must come before a keep
+	 */
+	private TokenFuncInputTypeException keptException()
+	{
+		return new TokenFuncInputTypeException(String.format("%s can only reroll a pool of identical independent dice, "
+				+ "so must be applied before any keep, as in 4D6%s1H3", getName(), getName()));
+	}
+	
+	/**
+	 * Generate a <code>Predicate</code> which is true for rolls which are at most a threshold
+	 * @param threshold	highest roll which is rerolled
+	 * @return			<code>Predicate</code> which is true for rolls which are rerolled
+	 */
+	private static Predicate<DiceNumber> atMost(DiceNumber threshold)
+	{
+		return (x) -> {return x.compareTo(threshold) <= 0;};
+	}
+	
+	/**
+	 * Reroll a single die
+	 * @param die		<code>DiceRollMap</code> of the die
+	 * @param rerolled	<code>Predicate</code> which is true for rolls which are rerolled
+	 * @return			<code>DiceRollMap</code> of the rerolled die
+	 */
+	public abstract DiceRollMap reroll(DiceRollMap die, Predicate<DiceNumber> rerolled);
+	
+	/**
+	 * Reroll each die of a {@link DeferredDicePool}
+	 * @param pool		pool to which no keep has been applied
+	 * @param rerolled	<code>Predicate</code> which is true for rolls which are rerolled
+	 * @return			<code>DeferredDicePool</code> of the rerolled dice
+	 */
+	public abstract DeferredDicePool reroll(DeferredDicePool pool, Predicate<DiceNumber> rerolled);
+	
+}
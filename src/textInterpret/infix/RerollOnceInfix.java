@@ -0,0 +1,30 @@
+package textInterpret.infix;
+
+import java.util.function.Predicate;
+
+import diceTools.DiceNumber;
+import diceTools.DiceRollMap;
+import textInterpret.DeferredDicePool;
+
+public class RerollOnceInfix extends RerollInfix
+{
+	
+	@Override
+	public DiceRollMap reroll(DiceRollMap die, Predicate<DiceNumber> rerolled)
+	{
+		return die.reroll(rerolled, 1);
+	}
+	
+	@Override
+	public DeferredDicePool reroll(DeferredDicePool pool, Predicate<DiceNumber> rerolled)
+	{
+		return pool.reroll(rerolled, 1);
+	}
+	
+	@Override
+	public String getName()
+	{
+		return "r";
+	}
+	
+}
@@ -0,0 +1,66 @@
+package textInterpret.infix;
+
+import diceTools.DiceNumber;
+import diceTools.DicePoolMap;
+import diceTools.DiceRollMap;
+import textInterpret.Deferred;
+import textInterpret.DeferredDicePool;
+import textInterpret.TokenFuncInputTypeException;
+import textInterpret.TokenInfix;
+
+/**
+ * {@link TokenInfix} operating on independent rolls as {@link DiceRollMap}s.
+ * <p>Pools are operated on by their sums, and a {@link DeferredDicePool} is flattened without being resolved.
+ * Numbers are operated on as rolls with a single outcome.
+ * 
+ * @author kieran
+ */
+public abstract class RollInfix extends TokenInfix
+{
+	
+	/**
+	 * Flatten {@link DeferredDicePool}s without resolving them
+	 */
+	@Override
+	public Object operateDeferred(Object objA, Object objB)
+	{
+		return operate(flattenDeferred(objA), flattenDeferred(objB));
+	}
+	
+	/**
+	 * Resolve a variable which may be {@link Deferred}, flattening a {@link DeferredDicePool} directly
+	 * @param obj	variable to resolve
+	 * @return		the resolved variable
+	 */
+	private static Object flattenDeferred(Object obj)
+	{
+		if (obj instanceof DeferredDicePool)
+			return ((DeferredDicePool) obj).flatten();
+		
+		return Deferred.resolve(obj);
+	}
+	
+	/**
+	 * Convert an argument to the {@link DiceRollMap} being operated on
+	 * @param obj	argument to convert
+	 * @param arg	position of the argument, used in exception messages
+	 * @return		<code>DiceRollMap</code> of the argument
+	 */
+	protected DiceRollMap toRoll(Object obj, int arg)
+	{
+		if (obj instanceof DiceRollMap)
+			return (DiceRollMap) obj;
+		else if (obj instanceof DicePoolMap)
+			return ((DicePoolMap) obj).flatten();
+		else if (obj instanceof DiceNumber)
+		{
+			DiceRollMap roll = new DiceRollMap();
+			roll.put((DiceNumber) obj, 1.0);
+			return roll;
+		}
+		else
+			throw new TokenFuncInputTypeException(String.format("Invalid type (%s) of argument %d passed to %s.operate",
+					obj.getClass().getName(), arg, getClass().getName()));
+	}
+	
+}
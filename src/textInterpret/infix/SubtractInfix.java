@@ -1,6 +1,7 @@
 package textInterpret.infix;
 
 import diceTools.DiceNumber;
+import diceTools.DiceRollMap;
 
 public class SubtractInfix extends NumericInfix
 {
@@ -14,6 +15,12 @@ public class SubtractInfix extends NumericInfix
 			return new DiceNumber.DiceDouble(a.doubleValue() - b.doubleValue());
 	}
 
+	@Override
+	public DiceRollMap operateCase(DiceRollMap drm1, DiceRollMap drm2)
+	{
+		return drm1.difference(drm2);
+	}
+	
 	@Override
 	public String getName()
 	{
@@ -0,0 +1,20 @@
+package textInterpret.infix;
+
+import diceTools.DiceRollMap;
+
+public class WorstInfix extends RepeatInfix
+{
+	
+	@Override
+	public DiceRollMap choose(DiceRollMap roll, int repeats)
+	{
+		return roll.minOf(repeats);
+	}
+	
+	@Override
+	public String getName()
+	{
+		return "worst";
+	}
+	
+}
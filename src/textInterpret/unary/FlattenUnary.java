@@ -3,10 +3,23 @@ package textInterpret.unary;
 import diceTools.DiceNumber;
 import diceTools.DicePoolMap;
 import diceTools.DiceRollMap;
+import textInterpret.DeferredDicePool;
 import textInterpret.TokenFuncInputTypeException;
 
 public class FlattenUnary extends ArgSortedUnary
 {
+	
+	/**
+	 * Flatten a {@link DeferredDicePool} without resolving it
+	 */
+	@Override
+	public Object operateDeferred(Object obj)
+	{
+		if (obj instanceof DeferredDicePool)
+			return ((DeferredDicePool) obj).flatten();
+		
+		return super.operateDeferred(obj);
+	}
 
 	@Override
 	public DiceRollMap operateCase(DicePoolMap operand)
@@ -7,9 +7,31 @@ import java.util.function.Function;
 import diceTools.DiceNumber;
 import diceTools.DicePoolMap;
 import diceTools.DiceRollMap;
+import textInterpret.DeferredDiceRoll;
+import textInterpret.DeferredRollMap;
 
 public abstract class NumericUnary extends ArgSortedUnary
 {
+	
+	/**
+	 * Defers operating on a {@link DiceRollMap}, composing the operation onto any
+	 * operations already deferred, so that chains of operations are applied in a single pass.
+	 * A {@link DeferredDiceRoll} is summed first.
+	 */
+	@Override
+	public Object operateDeferred(Object obj)
+	{
+		if (obj instanceof DeferredDiceRoll)
+			obj = ((DeferredDiceRoll) obj).resolve();
+		
+		if (obj instanceof DiceRollMap)
+			return DeferredRollMap.morph((DiceRollMap) obj, (n) -> {return operateCase(n);});
+		
+		if (obj instanceof DeferredRollMap)
+			return ((DeferredRollMap) obj).morph((n) -> {return operateCase(n);});
+		
+		return super.operateDeferred(obj);
+	}
 
 	@Override
 	public DicePoolMap operateCase(DicePoolMap operand)